@@ -0,0 +1,141 @@
+package benchmark;
+
+import db.ConnectionPool;
+import db.DB;
+import db.DbException;
+import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.SellerDaoJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Database the benchmarks run against, configured with system properties:
+ * <ul>
+ *     <li>{@code bench.dburl}: JDBC URL, by default a local MySQL schema {@code coursejdbc_bench}.
+ *     Use {@code jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1} for an embedded stand-in.</li>
+ *     <li>{@code bench.user} / {@code bench.password}: credentials, by default those of {@code db.properties}.</li>
+ *     <li>{@code bench.departments} / {@code bench.sellers}: number of rows seeded (default 10 / 10000).</li>
+ *     <li>{@code bench.poolSize}: maximum pool size (default 10).</li>
+ * </ul>
+ * The seller and department tables are dropped and recreated on every trial, so never point it at real data.
+ * Rows inserted by a benchmark are deleted after each iteration, so every iteration sees the seeded table sizes.
+ * The properties are read by the forked benchmark JVM, so they go before {@code -jar}
+ * (or after {@code -jvmArgsAppend}):
+ *
+ * <pre>
+ * mvn -Pjmh package
+ * java -Dbench.sellers=100000 -jar target/benchmarks.jar -prof gc
+ * </pre>
+ */
+public class BenchmarkDatabase {
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/coursejdbc_bench" +
+            "?allowPublicKeyRetrieval=true&useSSL=false&useLocalSessionState=true" +
+            "&useServerPrepStmts=true&cachePrepStmts=true&rewriteBatchedStatements=true";
+
+    private final ConnectionPool pool;
+    private final int departmentCount;
+    private final int sellerCount;
+
+    public BenchmarkDatabase() {
+        this.departmentCount = Integer.getInteger("bench.departments", 10);
+        this.sellerCount = Integer.getInteger("bench.sellers", 10_000);
+
+        Properties props = new Properties();
+        props.setProperty("user", System.getProperty("bench.user", defaultProperty("user")));
+        props.setProperty("password", System.getProperty("bench.password", defaultProperty("password")));
+        int poolSize = Integer.getInteger("bench.poolSize", 10);
+        this.pool = new ConnectionPool(System.getProperty("bench.dburl", DEFAULT_URL), props,
+                1, poolSize, 30_000, 600_000, 0, 5, 64);
+    }
+
+    /**
+     * Recreates the tables and seeds them with the configured number of rows.
+     */
+    public void seed() {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS seller");
+            st.execute("DROP TABLE IF EXISTS department");
+            st.execute("""
+                    CREATE TABLE department (
+                        Id INT NOT NULL AUTO_INCREMENT,
+                        Name VARCHAR(60) DEFAULT NULL,
+                        PRIMARY KEY (Id)
+                    )""");
+            st.execute("""
+                    CREATE TABLE seller (
+                        Id INT NOT NULL AUTO_INCREMENT,
+                        Name VARCHAR(60) NOT NULL,
+                        Email VARCHAR(100) NOT NULL,
+                        BirthDate DATETIME NOT NULL,
+                        BaseSalary DOUBLE NOT NULL,
+                        DepartmentId INT NOT NULL,
+                        PRIMARY KEY (Id),
+                        FOREIGN KEY (DepartmentId) REFERENCES department (Id)
+                    )""");
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+
+        List<Department> departments = new ArrayList<>(departmentCount);
+        for (int i = 0; i < departmentCount; i++) {
+            departments.add(new Department(null, "Department " + i));
+        }
+        new DepartmentDaoJDBC(pool).insertAll(departments);
+
+        Random random = new Random(42);
+        List<Seller> sellers = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            sellers.add(new Seller(null, "Seller " + i, "seller" + i + "@example.com",
+                    new Date(random.nextLong(0, 1_000_000_000_000L)), 1000.0 + random.nextInt(9000),
+                    departments.get(i % departmentCount)));
+        }
+        new SellerDaoJDBC(pool).insertAll(sellers);
+    }
+
+    /**
+     * Deletes the rows inserted since seeding, which got IDs above the seeded ones.
+     */
+    public void deleteInsertedRows() {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM seller WHERE Id > " + sellerCount);
+            st.executeUpdate("DELETE FROM department WHERE Id > " + departmentCount);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public int getDepartmentCount() {
+        return departmentCount;
+    }
+
+    public int getSellerCount() {
+        return sellerCount;
+    }
+
+    public void close() {
+        pool.close();
+    }
+
+    private static String defaultProperty(String key) {
+        try {
+            return DB.getProperties().getProperty(key, "");
+        } catch (DbException e) {
+            // No db.properties in the working directory
+            return "";
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import model.dao.impl.DepartmentDaoJDBC;
+import model.entities.Department;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles (sample mode) of the DepartmentDaoJDBC hot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DepartmentDaoBenchmark {
+
+    private BenchmarkDatabase database;
+    private DepartmentDaoJDBC dao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        database.seed();
+        dao = new DepartmentDaoJDBC(database.getPool());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        database.deleteInsertedRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Department findById() {
+        return dao.findById(1 + ThreadLocalRandom.current().nextInt(database.getDepartmentCount()));
+    }
+
+    @Benchmark
+    public List<Department> findAll() {
+        return dao.findAll();
+    }
+
+    @Benchmark
+    public Department insert() {
+        Department obj = new Department(null, "Bench");
+        dao.insert(obj);
+        return obj;
+    }
+}
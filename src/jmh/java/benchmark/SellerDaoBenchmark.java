@@ -0,0 +1,78 @@
+package benchmark;
+
+import model.dao.impl.SellerDaoJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles (sample mode) of the SellerDaoJDBC hot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SellerDaoBenchmark {
+
+    private BenchmarkDatabase database;
+    private SellerDaoJDBC dao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        database.seed();
+        dao = new SellerDaoJDBC(database.getPool());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        database.deleteInsertedRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Seller findById() {
+        return dao.findById(1 + ThreadLocalRandom.current().nextInt(database.getSellerCount()));
+    }
+
+    @Benchmark
+    public List<Seller> findAll() {
+        return dao.findAll();
+    }
+
+    @Benchmark
+    public List<Seller> findByDepartment() {
+        Department dep = new Department(1 + ThreadLocalRandom.current().nextInt(database.getDepartmentCount()), null);
+        return dao.findByDepartment(dep);
+    }
+
+    @Benchmark
+    public Seller insert() {
+        Department dep = new Department(1 + ThreadLocalRandom.current().nextInt(database.getDepartmentCount()), null);
+        Seller obj = new Seller(null, "Bench", "bench@example.com", new Date(), 3000.0, dep);
+        dao.insert(obj);
+        return obj;
+    }
+}
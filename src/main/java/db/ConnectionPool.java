@@ -0,0 +1,491 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of physical MySQL connections.
+ * Borrowers queue fairly for a permit, idle connections are validated before being handed out,
+ * and a housekeeping thread evicts connections that sat idle too long or outlived their max lifetime.
+ * Connections returned by {@link #getConnection()} go back to the pool when closed.
+ * Each physical connection keeps its own LRU cache of prepared statements.
+ */
+public class ConnectionPool implements ConnectionProvider, ConnectionPoolMXBean {
+
+    /** Idle connections used more recently than this are handed out without a validation round trip. */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String url;
+    private final Properties connectionProps;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool and opens its minimum number of connections in the background.
+     * @param url JDBC URL of the database.
+     * @param connectionProps properties handed to the driver (user, password, ...).
+     * @param minSize number of connections kept open even when idle.
+     * @param maxSize maximum number of physical connections.
+     * @param borrowTimeoutMillis how long a borrower waits for a free connection.
+     * @param idleTimeoutMillis idle time after which a connection above {@code minSize} is closed.
+     * @param maxLifetimeMillis age after which a connection is retired, 0 to disable.
+     * @param validationTimeoutSeconds timeout of the validation check done on borrow.
+     * @param statementCacheSize prepared statements cached per connection, 0 to disable caching.
+     */
+    public ConnectionPool(String url, Properties connectionProps, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.connectionProps = connectionProps;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Builds a pool from the {@code pool.*} keys of {@code db.properties}.
+     * @param url JDBC URL of the database.
+     * @param props properties loaded from {@code db.properties}.
+     * @return a new pool.
+     */
+    public static ConnectionPool fromProperties(String url, Properties props) {
+        return new ConnectionPool(
+                url,
+                props,
+                Integer.parseInt(props.getProperty("pool.minSize", "2")),
+                Integer.parseInt(props.getProperty("pool.maxSize", "10")),
+                Long.parseLong(props.getProperty("pool.borrowTimeoutMillis", "30000")),
+                Long.parseLong(props.getProperty("pool.idleTimeoutMillis", "600000")),
+                Long.parseLong(props.getProperty("pool.maxLifetimeMillis", "1800000")),
+                Integer.parseInt(props.getProperty("pool.validationTimeoutSeconds", "5")),
+                Integer.parseInt(props.getProperty("pool.statementCacheSize", "64"))
+        );
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured borrow timeout for one to become free.
+     * @return a connection that returns to the pool when closed.
+     */
+    @Override
+    public Connection getConnection() {
+        Connection conn = borrow(borrowTimeoutMillis);
+        if (conn == null) {
+            throw new DbException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection.");
+        }
+        return conn;
+    }
+
+    /**
+     * Borrows a connection if one becomes free within the given time, instead of the configured borrow timeout.
+     * @param timeoutMillis how long to wait, 0 to only take a connection that is free right away.
+     * @return a connection that returns to the pool when closed, or null if none became free in time.
+     */
+    public Connection tryGetConnection(long timeoutMillis) {
+        return borrow(timeoutMillis);
+    }
+
+    /**
+     * Opens a physical connection outside the pool, for checks that must not queue behind borrowers.
+     * The caller closes it.
+     */
+    public Connection openDedicatedConnection() {
+        try {
+            return DriverManager.getConnection(url, connectionProps);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    private Connection borrow(long timeoutMillis) {
+        if (closed) {
+            throw new DbException("Connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for a database connection.");
+        }
+
+        try {
+            while (true) {
+                PooledConnection pc = idle.pollFirst();
+                if (pc == null) {
+                    if (reserveSlot()) {
+                        return borrowed(start, lease(openConnection()));
+                    }
+                    // Every slot is held by an idle connection being created or evicted right now
+                    long remaining = deadline - System.nanoTime();
+                    pc = idle.pollFirst(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                    if (pc == null) {
+                        permits.release();
+                        return null;
+                    }
+                }
+                if (isExpired(pc, System.currentTimeMillis()) || !isValid(pc)) {
+                    destroy(pc);
+                    continue;
+                }
+                return borrowed(start, lease(pc));
+            }
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for a database connection.");
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops housekeeping.
+     * Connections still borrowed are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheStats.hits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheStats.misses.sum();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheStats.evictions.sum();
+    }
+
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheStats.hits.sum();
+        long total = hits + statementCacheStats.misses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getBorrowCount() {
+        return borrowWait.getCount();
+    }
+
+    public long getBorrowWaitP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.getValueAtPercentile(50));
+    }
+
+    public long getBorrowWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.getValueAtPercentile(99));
+    }
+
+    public long getBorrowWaitMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.getMaxNanos());
+    }
+
+    /**
+     * @return time borrowers spent in {@link #getConnection()}, including validation and opening new connections.
+     */
+    public LatencyHistogram getBorrowWaitHistogram() {
+        return borrowWait;
+    }
+
+    private Connection borrowed(long start, Connection conn) {
+        borrowWait.record(System.nanoTime() - start);
+        return conn;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalCount.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Opens a physical connection for a slot that was already reserved.
+     */
+    private PooledConnection openConnection() {
+        try {
+            Connection conn = DriverManager.getConnection(url, connectionProps);
+            StatementCache cache = statementCacheSize > 0 ? new StatementCache(statementCacheSize, statementCacheStats) : null;
+            return new PooledConnection(conn, cache);
+        } catch (SQLException e) {
+            totalCount.decrementAndGet();
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    private boolean isExpired(PooledConnection pc, long now) {
+        return maxLifetimeMillis > 0 && now - pc.createdAt >= maxLifetimeMillis;
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastUsedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pc.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        totalCount.decrementAndGet();
+        if (pc.statementCache != null) {
+            pc.statementCache.closeAll();
+        }
+        try {
+            pc.connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway
+        }
+    }
+
+    private Connection lease(PooledConnection pc) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease(pc)
+        );
+    }
+
+    /**
+     * Takes a connection back from a borrower, resetting session state changed during the lease.
+     */
+    private void giveBack(PooledConnection pc) {
+        try {
+            pc.lastUsedAt = System.currentTimeMillis();
+            if (closed || pc.broken || isExpired(pc, pc.lastUsedAt)) {
+                destroy(pc);
+                return;
+            }
+            try {
+                Connection conn = pc.connection;
+                if (conn.isClosed()) {
+                    // Closed or aborted underneath the lease; session state may still answer locally
+                    destroy(pc);
+                    return;
+                }
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                if (conn.isReadOnly()) {
+                    conn.setReadOnly(false);
+                }
+                if (conn.getTransactionIsolation() != pc.defaultIsolation) {
+                    conn.setTransactionIsolation(pc.defaultIsolation);
+                }
+                conn.clearWarnings();
+            } catch (SQLException e) {
+                destroy(pc);
+                return;
+            }
+            idle.offerFirst(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Evicts idle and expired connections and tops the pool back up to its minimum size.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            boolean idleTooLong = now - pc.lastUsedAt >= idleTimeoutMillis && totalCount.get() > minSize;
+            if ((idleTooLong || isExpired(pc, now)) && idle.remove(pc)) {
+                destroy(pc);
+            }
+        }
+        while (!closed && totalCount.get() < minSize && reserveSlot()) {
+            try {
+                idle.offerLast(openConnection());
+            } catch (DbException e) {
+                // Database unreachable for now; the next run tries again
+                return;
+            }
+        }
+    }
+
+    /**
+     * A physical connection and its pool bookkeeping.
+     */
+    private static final class PooledConnection {
+        final Connection connection;
+        final long createdAt;
+        final int defaultIsolation;
+        final StatementCache statementCache;
+        volatile long lastUsedAt;
+        volatile boolean broken;
+
+        PooledConnection(Connection connection, StatementCache statementCache) throws SQLException {
+            this.connection = connection;
+            this.statementCache = statementCache;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = createdAt;
+            this.defaultIsolation = connection.getTransactionIsolation();
+        }
+    }
+
+    /**
+     * Handle given to one borrower. Closing it returns the physical connection exactly once;
+     * any later use fails instead of touching a connection that may already be lent to someone else.
+     */
+    private final class Lease implements InvocationHandler {
+        private PooledConnection pc;
+
+        Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (pc != null) {
+                        PooledConnection returned = pc;
+                        pc = null;
+                        giveBack(returned);
+                    }
+                    return null;
+                case "isClosed":
+                    return pc == null || pc.connection.isClosed();
+                case "abort":
+                    // Called from another thread; the connection is unusable afterwards, so it must not be reused
+                    PooledConnection aborted = pc;
+                    if (aborted == null) {
+                        return null;
+                    }
+                    aborted.broken = true;
+                    aborted.connection.abort((Executor) args[0]);
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pc == null ? "closed" : pc.connection) + "]";
+                default:
+                    break;
+            }
+            if (pc == null) {
+                throw new SQLException("Connection is closed.", "08003");
+            }
+            try {
+                if (pc.statementCache != null && isCacheablePrepare(method)) {
+                    int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                    return pc.statementCache.prepare(pc.connection, (Connection) proxy, (String) args[0], autoGeneratedKeys);
+                }
+                return method.invoke(pc.connection, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException && isFatal(sqlException)) {
+                    pc.broken = true;
+                }
+                throw cause;
+            } catch (SQLException e) {
+                if (isFatal(e)) {
+                    pc.broken = true;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Only {@code prepareStatement(String)} and {@code prepareStatement(String, int autoGeneratedKeys)} are cached;
+         * statements with custom result set types or key columns are prepared directly.
+         */
+        private boolean isCacheablePrepare(Method method) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        private boolean isFatal(SQLException e) {
+            String state = e.getSQLState();
+            return state != null && state.startsWith("08");
+        }
+    }
+}
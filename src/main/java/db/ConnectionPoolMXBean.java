@@ -0,0 +1,37 @@
+package db;
+
+/**
+ * JMX view of a {@link ConnectionPool}: occupancy, time spent waiting for a connection
+ * and the prepared statement cache hit rate.
+ */
+public interface ConnectionPoolMXBean {
+
+    int getMaxSize();
+
+    int getTotalCount();
+
+    int getIdleCount();
+
+    int getActiveCount();
+
+    int getWaitingCount();
+
+    long getBorrowCount();
+
+    long getBorrowWaitP50Micros();
+
+    long getBorrowWaitP99Micros();
+
+    long getBorrowWaitMaxMicros();
+
+    long getStatementCacheHits();
+
+    long getStatementCacheMisses();
+
+    long getStatementCacheEvictions();
+
+    /**
+     * @return share of statement preparations served from the cache, between 0 and 1.
+     */
+    double getStatementCacheHitRate();
+}
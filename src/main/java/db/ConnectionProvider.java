@@ -0,0 +1,51 @@
+package db;
+
+import java.sql.Connection;
+
+/**
+ * Source of JDBC connections for the DAO layer.
+ * DAOs borrow a connection per operation and hand it back with {@link DB#closeConnection(Connection)}.
+ */
+public interface ConnectionProvider {
+
+    /**
+     * Borrows a connection. Closing the returned connection gives it back to the provider.
+     * @return an open connection.
+     */
+    Connection getConnection();
+
+    /**
+     * Borrows a connection for a read-only query, which providers may route to a replica.
+     * @return an open connection.
+     */
+    default Connection getReadConnection() {
+        return getConnection();
+    }
+
+    /**
+     * Borrows a connection for a read that must see the latest committed data, such as one refilling
+     * a cache right after a write; never a replica.
+     * @return an open connection.
+     */
+    default Connection getPrimaryReadConnection() {
+        return getConnection();
+    }
+
+    /**
+     * @return a view of this provider whose reads all use {@link #getPrimaryReadConnection()}.
+     */
+    default ConnectionProvider withPrimaryReads() {
+        ConnectionProvider provider = this;
+        return new ConnectionProvider() {
+            @Override
+            public Connection getConnection() {
+                return provider.getConnection();
+            }
+
+            @Override
+            public Connection getReadConnection() {
+                return provider.getPrimaryReadConnection();
+            }
+        };
+    }
+}
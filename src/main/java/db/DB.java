@@ -3,30 +3,117 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class DB {
 
-    private static Connection conn = null;
+    private static volatile ConnectionPool pool = null;
+    private static volatile RoutingConnectionProvider router = null;
+    private static volatile TransactionManager transactionManager = null;
+    private static volatile Properties properties = null;
 
+    /**
+     * Borrows a connection from the shared pool.
+     * Closing it (or passing it to {@link #closeConnection(Connection)}) gives it back.
+     */
     public static Connection getConnection() {
-        if (conn == null) {
-            try {
-                Properties props = loadProperties();
-                String url = props.getProperty("dburl");
-                //Add parâmetros de segurança na URL
-                url += "?allowPublicKeyRetrieval=true&useSSL=false";
-                conn = DriverManager.getConnection(url, props);
+        return getConnectionPool().getConnection();
+    }
+
+    /**
+     * Returns the shared pool, creating it from {@code db.properties} on first use.
+     */
+    public static ConnectionPool getConnectionPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DB.class) {
+                p = pool;
+                if (p == null) {
+                    Properties props = getProperties();
+                    p = ConnectionPool.fromProperties(buildUrl(props.getProperty("dburl")), props);
+                    pool = p;
+                }
             }
-            catch (SQLException e) {
-                throw new DbException(e.getMessage());
+        }
+        return p;
+    }
+
+    /**
+     * Returns the transaction manager over the shared pool. DAOs built on it join the
+     * transaction bound to the current thread, if any.
+     */
+    public static TransactionManager getTransactionManager() {
+        TransactionManager tm = transactionManager;
+        if (tm == null) {
+            synchronized (DB.class) {
+                tm = transactionManager;
+                if (tm == null) {
+                    tm = TransactionManager.fromProperties(getRoutingProvider(), getProperties());
+                    transactionManager = tm;
+                }
             }
         }
+        return tm;
+    }
 
-        return conn;
+    /**
+     * Returns the provider routing reads to the replicas listed in {@code replica.urls}, or the
+     * primary pool itself when no replica is configured.
+     */
+    public static ConnectionProvider getRoutingProvider() {
+        String urls = getProperties().getProperty("replica.urls", "").trim();
+        if (urls.isEmpty()) {
+            return getConnectionPool();
+        }
+        RoutingConnectionProvider r = router;
+        if (r == null) {
+            synchronized (DB.class) {
+                r = router;
+                if (r == null) {
+                    Properties props = getProperties();
+                    List<ConnectionPool> replicas = new ArrayList<>();
+                    for (String url : urls.split(",")) {
+                        replicas.add(ConnectionPool.fromProperties(buildUrl(url.trim()), props));
+                    }
+                    r = new RoutingConnectionProvider(
+                            getConnectionPool(),
+                            replicas,
+                            RoutingConnectionProvider.Strategy.valueOf(props.getProperty("replica.strategy", "ROUND_ROBIN").trim()),
+                            Long.parseLong(props.getProperty("replica.healthCheckMillis", "5000")),
+                            Long.parseLong(props.getProperty("replica.borrowTimeoutMillis", "50")),
+                            Long.parseLong(props.getProperty("replica.readAfterWriteMillis", "5000"))
+                    );
+                    router = r;
+                }
+            }
+        }
+        return r;
     }
 
+    /**
+     * Shuts the shared pools down. The next call to {@link #getConnection()} starts a new one.
+     */
     public static void closeConnetion() {
+        synchronized (DB.class) {
+            if (router != null) {
+                router.close();
+                router = null;
+                pool = null;
+            }
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+            transactionManager = null;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool.
+     */
+    public static void closeConnection(Connection conn) {
         if (conn != null) {
             try {
                 conn.close();
@@ -37,6 +124,107 @@ public class DB {
         }
     }
 
+    /**
+     * Starts a transaction on the connection unless one is already in progress.
+     * @return true if the caller started the transaction and is responsible for committing it.
+     */
+    public static boolean beginIfAutoCommit(Connection conn) throws SQLException {
+        if (conn.getAutoCommit()) {
+            conn.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Starts a read-only transaction whose queries all see one consistent snapshot of the database,
+     * taken by this call, if the connection is in auto-commit mode.
+     * @return true if a transaction was started, which the caller must then commit.
+     */
+    public static boolean beginSnapshotIfAutoCommit(Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return false;
+        }
+        conn.setAutoCommit(false);
+        if (conn.getTransactionIsolation() != Connection.TRANSACTION_REPEATABLE_READ) {
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+        }
+        return true;
+    }
+
+    /**
+     * Runs an action once the work done so far on a connection is committed: right away in
+     * auto-commit mode, or when the {@link Transaction} the connection belongs to commits.
+     * The action is dropped for a transaction managed some other way, whose outcome is unknown here,
+     * so it must only do what is safe to skip (such as forgetting which fields were written).
+     */
+    public static void afterCommit(Connection conn, Runnable action) throws SQLException {
+        if (conn.getAutoCommit()) {
+            action.run();
+        } else if (conn.isWrapperFor(Transaction.class)) {
+            conn.unwrap(Transaction.class).afterCommit(action);
+        }
+    }
+
+    /**
+     * Rolls back the current transaction, ignoring failures so the original error is the one reported.
+     */
+    public static void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            }
+            catch (SQLException ignored) {
+                // The original failure is more useful to the caller
+            }
+        }
+    }
+
+    /**
+     * Returns the settings from {@code db.properties}, loaded once.
+     */
+    public static Properties getProperties() {
+        Properties p = properties;
+        if (p == null) {
+            synchronized (DB.class) {
+                p = properties;
+                if (p == null) {
+                    p = loadProperties();
+                    properties = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Reads an integer setting from {@code db.properties}.
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static String buildUrl(String baseUrl) {
+        String url = baseUrl;
+        //Add parâmetros de segurança na URL
+        url += "?allowPublicKeyRetrieval=true&useSSL=false";
+        //Session state is tracked by the driver so the pool can reset it without round trips
+        url += "&useLocalSessionState=true";
+        //Server-side prepares, kept open by the driver so the pool's statement cache can reuse them
+        url += "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=2048";
+        //Batches are sent as multi-row statements instead of one round trip per row
+        url += "&rewriteBatchedStatements=true";
+        //Lets the bulk loader send LOAD DATA LOCAL INFILE rows; off by default since the server then may request local files
+        if (Boolean.parseBoolean(getProperties().getProperty("bulkLoad.allowLocalInfile", "false").trim())) {
+            url += "&allowLoadLocalInfile=true";
+        }
+        return url;
+    }
+
     private static Properties loadProperties() {
         try (FileInputStream fs = new FileInputStream("db.properties")) {
             Properties props = new Properties();
@@ -47,6 +235,29 @@ public class DB {
         }
     }
 
+    /**
+     * Closes a statement, then gives its connection back to the pool even if closing the statement failed.
+     */
+    public static void close(Statement st, Connection conn) {
+        try {
+            closeStatement(st);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Closes a result set, then its statement, then gives the connection back to the pool; each step
+     * runs even if an earlier one failed, so a statement failing to close never leaks the connection.
+     */
+    public static void close(ResultSet rs, Statement st, Connection conn) {
+        try {
+            closeResultSet(rs);
+        } finally {
+            close(st, conn);
+        }
+    }
+
     public static void closeStatement(Statement st) {
         if (st != null) {
             try {
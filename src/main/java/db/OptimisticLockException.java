@@ -0,0 +1,27 @@
+package db;
+
+/**
+ * Thrown when an update is rejected because the row changed (or was deleted) since the version
+ * held by the caller was read. Re-reading the row and applying the change again usually succeeds;
+ * see {@link OptimisticRetry}.
+ */
+public class OptimisticLockException extends DbException {
+    private static final long serialVersionUID = 1L;
+
+    private final Integer id;
+    private final Integer expectedVersion;
+
+    public OptimisticLockException(String entity, Integer id, Integer expectedVersion) {
+        super(entity + " " + id + " was updated or deleted by another transaction since version " + expectedVersion + " was read.");
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getExpectedVersion() {
+        return expectedVersion;
+    }
+}
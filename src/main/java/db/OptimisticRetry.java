@@ -0,0 +1,63 @@
+package db;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry of work that fails with an {@link OptimisticLockException}.
+ * Each attempt must read the rows it updates again, and should run in its own transaction:
+ * a retry inside the transaction that failed would keep seeing the same stale snapshot.
+ * Attempts are separated by a short randomized backoff so competing writers spread out.
+ */
+public final class OptimisticRetry {
+
+    private static final long BASE_BACKOFF_MILLIS = 5;
+    private static final long MAX_BACKOFF_MILLIS = 500;
+
+    private OptimisticRetry() {
+    }
+
+    /**
+     * Runs the work, retrying it on optimistic lock conflicts.
+     * @param maxAttempts total number of attempts, at least 1.
+     * @param work the reads and updates to perform.
+     * @return the work's result.
+     * @throws OptimisticLockException from the last attempt if every attempt conflicted.
+     */
+    public static <T> T call(int maxAttempts, Supplier<T> work) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Attempts must be positive: " + maxAttempts);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (OptimisticLockException e) {
+                if (attempt == maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Runs the work, retrying it on optimistic lock conflicts.
+     * @see #call(int, Supplier)
+     */
+    public static void run(int maxAttempts, Runnable work) {
+        call(maxAttempts, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static void backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting to retry.");
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends writes to the primary and spreads reads over replicas.
+ * Replicas are picked round-robin or by fewest connections in use. A replica without a free
+ * connection within {@code replicaBorrowTimeoutMillis} is passed over for that read; one that fails
+ * to hand out a connection is taken out of rotation until the periodic health check, made on a
+ * connection of its own, finds it reachable again. When no replica is available, reads go to the primary.
+ * <p>
+ * For {@code readAfterWriteMillis} after a thread borrowed a primary connection, its reads also go to
+ * the primary, so it sees its own writes despite replication lag.
+ */
+public class RoutingConnectionProvider implements ConnectionProvider {
+
+    /**
+     * How a read picks among the healthy replicas.
+     */
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas;
+    private final Strategy strategy;
+    private final long replicaBorrowTimeoutMillis;
+    private final long readAfterWriteNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Long> lastPrimaryBorrow = new ThreadLocal<>();
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * @param primary pool of the primary database, used for writes.
+     * @param replicaPools pools of the read replicas.
+     * @param strategy how reads are balanced over the replicas.
+     * @param healthCheckMillis interval between replica health checks.
+     * @param replicaBorrowTimeoutMillis how long a read waits for a replica connection before trying elsewhere.
+     * @param readAfterWriteMillis how long after borrowing a primary connection a thread keeps reading the primary.
+     */
+    public RoutingConnectionProvider(ConnectionPool primary, List<ConnectionPool> replicaPools,
+                                     Strategy strategy, long healthCheckMillis,
+                                     long replicaBorrowTimeoutMillis, long readAfterWriteMillis) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.strategy = strategy;
+        this.replicaBorrowTimeoutMillis = replicaBorrowTimeoutMillis;
+        this.readAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(readAfterWriteMillis);
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-replica-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection to the primary, for writes; the thread's reads follow it for a while.
+     */
+    @Override
+    public Connection getConnection() {
+        Connection conn = primary.getConnection();
+        lastPrimaryBorrow.set(System.nanoTime());
+        return conn;
+    }
+
+    /**
+     * Borrows a connection to a healthy replica with a free connection, or to the primary if none
+     * is available or the thread wrote recently.
+     */
+    @Override
+    public Connection getReadConnection() {
+        Long last = lastPrimaryBorrow.get();
+        if (last != null && System.nanoTime() - last < readAfterWriteNanos) {
+            return primary.getConnection();
+        }
+        List<Replica> tried = new ArrayList<>(replicas.size());
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = pick(tried);
+            if (replica == null) {
+                break;
+            }
+            tried.add(replica);
+            try {
+                Connection conn = replica.pool.tryGetConnection(replicaBorrowTimeoutMillis);
+                if (conn != null) {
+                    return conn;
+                }
+                // Saturated rather than down: try another replica, keeping this one in rotation
+            } catch (DbException e) {
+                replica.healthy = false;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Borrows a connection to the primary without affecting where the thread's later reads go.
+     */
+    @Override
+    public Connection getPrimaryReadConnection() {
+        return primary.getConnection();
+    }
+
+    public ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return number of replicas currently in rotation.
+     */
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops health checks and closes the primary and replica pools.
+     */
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.closeHealthConnection();
+            replica.pool.close();
+        }
+        primary.close();
+    }
+
+    private Replica pick(List<Replica> tried) {
+        if (strategy == Strategy.LEAST_LOADED) {
+            Replica best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                int load = replica.pool.getActiveCount() + replica.pool.getWaitingCount();
+                if (replica.healthy && !tried.contains(replica) && load < bestLoad) {
+                    best = replica;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy && !tried.contains(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks each replica on a dedicated connection, so a replica whose pool is exhausted by slow
+     * queries is not mistaken for an unreachable one and the check never waits for a borrow.
+     */
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try {
+                if (replica.healthConnection == null) {
+                    replica.healthConnection = replica.pool.openDedicatedConnection();
+                }
+                replica.healthy = replica.healthConnection.isValid(5);
+            } catch (DbException | SQLException e) {
+                replica.healthy = false;
+            }
+            if (!replica.healthy) {
+                replica.closeHealthConnection();
+            }
+        }
+    }
+
+    private static final class Replica {
+        final ConnectionPool pool;
+        volatile boolean healthy = true;
+        Connection healthConnection; // Only used by the health check thread
+
+        Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        void closeHealthConnection() {
+            if (healthConnection != null) {
+                try {
+                    healthConnection.close();
+                } catch (SQLException e) {
+                    // Already broken
+                }
+                healthConnection = null;
+            }
+        }
+    }
+}
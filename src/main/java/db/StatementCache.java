@@ -0,0 +1,198 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * Statements are keyed by SQL text and generated-keys flag; closing a cached statement
+ * only clears its parameters so the next {@code prepareStatement} with the same key reuses it.
+ * A connection is used by one borrower at a time, so the cache itself is not synchronized.
+ */
+class StatementCache {
+
+    private final int maxSize;
+    private final Stats stats;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    StatementCache(int maxSize, Stats stats) {
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a cached statement for the key, preparing and caching a new one on a miss.
+     * If the cached statement is still open elsewhere (nested use of the same SQL) an uncached one is returned.
+     * @param physical the physical connection statements are prepared on.
+     * @param owner the connection handle the borrower sees, returned by {@link Statement#getConnection()}.
+     */
+    PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.evicted) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            if (entry.inUse) {
+                stats.misses.increment();
+                return physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            stats.hits.increment();
+            entry.inUse = true;
+            return entry.handle(owner);
+        }
+
+        stats.misses.increment();
+        entry = new Entry(key, physical.prepareStatement(sql, autoGeneratedKeys));
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.handle(owner);
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is closed.
+     */
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.evicted = true;
+            if (!entry.inUse) {
+                entry.closeQuietly();
+            }
+        }
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.evicted = true;
+            stats.evictions.increment();
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * Hit, miss and eviction counters shared by every cache of a pool.
+     */
+    static final class Stats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    /**
+     * A cached physical statement and whether a borrower currently holds it.
+     */
+    private static final class Entry {
+        final Key key;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        PreparedStatement handle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner)
+            );
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Discarding the statement anyway
+            }
+        }
+    }
+
+    /**
+     * The view of a cached statement given to one borrower; closing it hands the statement back to the cache.
+     */
+    private static final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed;
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.key.sql() + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed.", "S1009");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void release() throws SQLException {
+            entry.inUse = false;
+            if (entry.evicted) {
+                entry.statement.close();
+                return;
+            }
+            try {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                entry.statement.clearWarnings();
+            } catch (SQLException e) {
+                entry.evicted = true;
+                entry.statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A database transaction bound to the current thread by {@link TransactionManager}.
+ * DAO calls made inside it share its connection; savepoints allow rolling back part of the work.
+ * The connection unwraps to its transaction, so code holding only the connection can register
+ * actions to run once it commits.
+ */
+public class Transaction {
+
+    private final Connection connection;
+    private final Connection handle;
+    private boolean rollbackOnly;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+    /** Number of after-commit actions registered when each open savepoint was set. */
+    private final Map<Savepoint, Integer> savepointMarks = new IdentityHashMap<>();
+
+    Transaction(Connection connection) {
+        this.connection = connection;
+        // DAOs close the connections they borrow; inside a transaction that must not end the lease
+        this.handle = (Connection) Proxy.newProxyInstance(
+                Transaction.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> null;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "TransactionConnection[" + connection + "]";
+                    case "isWrapperFor" -> args[0] == Transaction.class || connection.isWrapperFor((Class<?>) args[0]);
+                    case "unwrap" -> args[0] == Transaction.class ? this : connection.unwrap((Class<?>) args[0]);
+                    default -> {
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+        );
+    }
+
+    /**
+     * @return the transaction's connection; closing it has no effect.
+     */
+    public Connection getConnection() {
+        return handle;
+    }
+
+    public Savepoint savepoint(String name) {
+        try {
+            Savepoint savepoint = connection.setSavepoint(name);
+            savepointMarks.put(savepoint, afterCommit.size());
+            return savepoint;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public void rollbackTo(Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+            Integer mark = savepointMarks.get(savepoint);
+            if (mark != null) {
+                // Actions for work that was just undone must not run on commit
+                afterCommit.subList(mark, afterCommit.size()).clear();
+            }
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+            savepointMarks.remove(savepoint);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs part of the transaction behind a savepoint: if the work throws, only its changes
+     * are rolled back and the exception is rethrown, leaving the rest of the transaction intact.
+     * @param name name of the savepoint.
+     * @param work the work to run.
+     * @return the work's result.
+     */
+    public <T> T inSavepoint(String name, Supplier<T> work) {
+        Savepoint savepoint = savepoint(name);
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException | Error e) {
+            rollbackTo(savepoint);
+            throw e;
+        }
+        releaseSavepoint(savepoint);
+        return result;
+    }
+
+    /**
+     * Marks the transaction so it is rolled back instead of committed when its scope ends.
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Registers an action to run after the transaction commits. It does not run if the
+     * transaction is rolled back, or if it was registered behind a savepoint that is rolled back to.
+     */
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    /**
+     * Registers an action to run once the transaction has ended, whether it committed or rolled back.
+     * Rolling back to a savepoint does not drop it.
+     */
+    public void afterCompletion(Runnable action) {
+        afterCompletion.add(action);
+    }
+
+    /**
+     * Runs the after-commit actions, in registration order.
+     */
+    void committed() {
+        for (Runnable action : afterCommit) {
+            action.run();
+        }
+        afterCommit.clear();
+    }
+
+    /**
+     * Runs the after-completion actions, in registration order.
+     */
+    void completed() {
+        for (Runnable action : afterCompletion) {
+            action.run();
+        }
+        afterCompletion.clear();
+    }
+}
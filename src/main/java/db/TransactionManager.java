@@ -0,0 +1,189 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Groups DAO calls into transactions.
+ * Inside {@link #inTransaction(Function)} a single connection is bound to the current thread,
+ * and every DAO built on this manager uses it instead of borrowing its own, so all their writes
+ * are committed together. Outside a transaction connections come straight from the underlying provider.
+ */
+public class TransactionManager implements ConnectionProvider {
+
+    private final ConnectionProvider provider;
+    private final int defaultIsolation;
+    private final ThreadLocal<Transaction> current = new ThreadLocal<>();
+
+    /**
+     * @param provider source of the connections transactions run on.
+     * @param defaultIsolation isolation level used when none is given, one of the {@link Connection} constants.
+     */
+    public TransactionManager(ConnectionProvider provider, int defaultIsolation) {
+        this.provider = provider;
+        this.defaultIsolation = defaultIsolation;
+    }
+
+    /**
+     * Builds a manager whose default isolation comes from {@code tx.isolation} in {@code db.properties}
+     * (READ_UNCOMMITTED, READ_COMMITTED, REPEATABLE_READ or SERIALIZABLE; REPEATABLE_READ by default).
+     */
+    public static TransactionManager fromProperties(ConnectionProvider provider, Properties props) {
+        return new TransactionManager(provider, parseIsolation(props.getProperty("tx.isolation", "REPEATABLE_READ")));
+    }
+
+    /**
+     * Returns the current transaction's connection if there is one, otherwise borrows a connection.
+     */
+    @Override
+    public Connection getConnection() {
+        Transaction tx = current.get();
+        return tx != null ? tx.getConnection() : provider.getConnection();
+    }
+
+    /**
+     * Returns the current transaction's connection if there is one, so reads inside a write
+     * transaction see its own changes; otherwise borrows a read connection, possibly from a replica.
+     */
+    @Override
+    public Connection getReadConnection() {
+        Transaction tx = current.get();
+        return tx != null ? tx.getConnection() : provider.getReadConnection();
+    }
+
+    /**
+     * Returns the current transaction's connection if there is one, otherwise borrows a connection to the primary.
+     */
+    @Override
+    public Connection getPrimaryReadConnection() {
+        Transaction tx = current.get();
+        return tx != null ? tx.getConnection() : provider.getPrimaryReadConnection();
+    }
+
+    /**
+     * @return true if the current thread is inside a transaction.
+     */
+    public boolean isInTransaction() {
+        return current.get() != null;
+    }
+
+    /**
+     * Runs an action once the current transaction has committed or rolled back, or right away
+     * outside a transaction.
+     */
+    public void afterCompletion(Runnable action) {
+        Transaction tx = current.get();
+        if (tx != null) {
+            tx.afterCompletion(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs work in a transaction with the default isolation level.
+     * @see #inTransaction(int, Function)
+     */
+    public <T> T inTransaction(Function<Transaction, T> work) {
+        return inTransaction(defaultIsolation, work);
+    }
+
+    /**
+     * Runs work in a transaction. It is committed when the work returns and rolled back when it
+     * throws (e.g. a {@link DbException} or {@link DbIntegrityException}) or was marked rollback-only.
+     * When a transaction is already active on this thread the work joins it, keeping its isolation level.
+     * @param isolation isolation level, one of the {@link Connection} constants.
+     * @param work the work to run.
+     * @return the work's result.
+     */
+    public <T> T inTransaction(int isolation, Function<Transaction, T> work) {
+        Transaction outer = current.get();
+        if (outer != null) {
+            return work.apply(outer);
+        }
+
+        Connection conn = provider.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            if (conn.getTransactionIsolation() != isolation) {
+                conn.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            DB.closeConnection(conn);
+            throw new DbException(e.getMessage());
+        }
+        return run(conn, work);
+    }
+
+    /**
+     * Runs read-only work in a transaction on a read connection, possibly to a replica, in which every
+     * query (made through any DAO built on this manager) sees one consistent snapshot of the database.
+     * Writes fail. When a transaction is already active on this thread the work joins it instead.
+     * @param work the work to run.
+     * @return the work's result.
+     */
+    public <T> T inSnapshotTransaction(Function<Transaction, T> work) {
+        Transaction outer = current.get();
+        if (outer != null) {
+            return work.apply(outer);
+        }
+
+        Connection conn = provider.getReadConnection();
+        try {
+            DB.beginSnapshotIfAutoCommit(conn);
+        } catch (SQLException e) {
+            DB.closeConnection(conn);
+            throw new DbException(e.getMessage());
+        }
+        return run(conn, work);
+    }
+
+    /**
+     * Binds a transaction on a connection already out of auto-commit mode to the current thread,
+     * runs the work and commits or rolls back. The connection is closed afterwards.
+     */
+    private <T> T run(Connection conn, Function<Transaction, T> work) {
+        Transaction tx = new Transaction(conn);
+        try {
+            current.set(tx);
+
+            T result;
+            try {
+                result = work.apply(tx);
+            } catch (RuntimeException | Error e) {
+                DB.rollback(conn);
+                throw e;
+            }
+
+            if (tx.isRollbackOnly()) {
+                conn.rollback();
+            } else {
+                conn.commit();
+                tx.committed();
+            }
+            return result;
+        } catch (SQLException e) {
+            DB.rollback(conn);
+            throw new DbException(e.getMessage());
+        } finally {
+            current.remove();
+            try {
+                DB.closeConnection(conn); // The pool restores auto-commit and the isolation level
+            } finally {
+                tx.completed();
+            }
+        }
+    }
+
+    private static int parseIsolation(String name) {
+        return switch (name.trim().toUpperCase()) {
+            case "READ_UNCOMMITTED" -> Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "READ_COMMITTED" -> Connection.TRANSACTION_READ_COMMITTED;
+            case "REPEATABLE_READ" -> Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE" -> Connection.TRANSACTION_SERIALIZABLE;
+            default -> throw new IllegalArgumentException("Unknown transaction isolation: " + name);
+        };
+    }
+}
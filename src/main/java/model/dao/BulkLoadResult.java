@@ -0,0 +1,58 @@
+package model.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk load: rows the database loaded, rows it skipped (such as duplicate keys),
+ * rows rejected before sending (such as sellers of an unknown department) and the warnings reported.
+ */
+public class BulkLoadResult {
+
+    private final long rowsLoaded;
+    private final long rowsSkipped;
+    private final long rowsRejected;
+    private final int warningCount;
+    private final List<String> warnings;
+
+    public BulkLoadResult(long rowsLoaded, long rowsSkipped, long rowsRejected, int warningCount, List<String> warnings) {
+        this.rowsLoaded = rowsLoaded;
+        this.rowsSkipped = rowsSkipped;
+        this.rowsRejected = rowsRejected;
+        this.warningCount = warningCount;
+        this.warnings = Collections.unmodifiableList(warnings);
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * @return number of warnings, which may exceed the messages kept in {@link #getWarnings()}.
+     */
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadResult{" +
+                "rowsLoaded=" + rowsLoaded +
+                ", rowsSkipped=" + rowsSkipped +
+                ", rowsRejected=" + rowsRejected +
+                ", warningCount=" + warningCount +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package model.dao;
+
+import db.Transaction;
+
+/**
+ * What a transactional block gets from {@link DaoFactory#inTransaction}: DAOs that run
+ * on the block's transaction, and the transaction itself for savepoints.
+ */
+public class DaoContext {
+
+    private final Transaction transaction;
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+
+    public DaoContext(Transaction transaction, SellerDao sellerDao, DepartmentDao departmentDao) {
+        this.transaction = transaction;
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public SellerDao getSellerDao() {
+        return sellerDao;
+    }
+
+    public DepartmentDao getDepartmentDao() {
+        return departmentDao;
+    }
+}
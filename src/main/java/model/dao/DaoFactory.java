@@ -1,8 +1,29 @@
 package model.dao;
 
+import db.ConnectionProvider;
 import db.DB;
+import db.DbException;
+import db.OptimisticRetry;
+import db.TransactionManager;
+import model.dao.cache.CachingDepartmentDao;
+import model.dao.changes.ChangeFeedPoller;
+import model.dao.impl.DaoExecutor;
+import model.dao.impl.DepartmentDaoAsyncImpl;
 import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.PayrollDaoJDBC;
+import model.dao.impl.SellerBulkLoader;
+import model.dao.impl.SellerDaoAsyncImpl;
 import model.dao.impl.SellerDaoJDBC;
+import model.dao.metrics.DaoMetrics;
+import model.dao.snapshot.SellerSnapshot;
+import model.dao.snapshot.SellerSnapshotStore;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Factory class responsible for instantiating DAO implementations.
@@ -12,19 +33,279 @@ public class DaoFactory {
 
     /**
      * Creates an instance of SellerDao using a JDBC implementation.
+     * It joins the transaction of the calling thread, if any, and records metrics when
+     * {@code metrics.enabled} is set. Departments of partially loaded sellers are loaded
+     * through the shared department cache. Updates are version-checked when
+     * {@code dao.optimisticLocking} is set.
      *
-     * @return a new instance of SellerDaoJDBC with an active database connection
+     * @return a new instance of SellerDaoJDBC borrowing connections from the shared pool
      */
     public static SellerDao createSellerDao() {
-        return new SellerDaoJDBC(DB.getConnection());
+        SellerDao dao = new SellerDaoJDBC(
+                DB.getTransactionManager(),
+                DB.getIntProperty("batch.size", SellerDaoJDBC.DEFAULT_BATCH_SIZE),
+                createCachingDepartmentDao(),
+                isOptimisticLockingEnabled()
+        );
+        return isMetricsEnabled() ? getMetrics().wrap(SellerDao.class, dao) : dao;
     }
 
     /**
      * Creates an instance of DepartmentDao using a JDBC implementation.
+     * It joins the transaction of the calling thread, if any, and records metrics when
+     * {@code metrics.enabled} is set. Updates are version-checked when {@code dao.optimisticLocking} is set.
+     * Reads bypass the shared department cache; writes drop the departments they touch from it.
      *
-     * @return a new instance of DepartmentDaoJDBC with an active database connection
+     * @return a new DepartmentDaoJDBC borrowing connections from the shared pool, wrapped to keep the cache current
      */
     public static DepartmentDao createDepartmentDao() {
-        return new DepartmentDaoJDBC(DB.getConnection());
+        return createCachingDepartmentDao().invalidateOnWrites(createDepartmentDao(DB.getTransactionManager()));
+    }
+
+    private static DepartmentDao createDepartmentDao(ConnectionProvider connectionProvider) {
+        DepartmentDao dao = new DepartmentDaoJDBC(
+                connectionProvider,
+                DB.getIntProperty("batch.size", DepartmentDaoJDBC.DEFAULT_BATCH_SIZE),
+                isOptimisticLockingEnabled()
+        );
+        return isMetricsEnabled() ? getMetrics().wrap(DepartmentDao.class, dao) : dao;
+    }
+
+    /**
+     * Returns the metrics shared by every DAO created by this factory.
+     * They are registered over JMX as {@code model.dao:type=DaoMetrics}, next to the pool
+     * ({@code db:type=ConnectionPool}); the slow query threshold comes from {@code metrics.slowQueryMillis}.
+     *
+     * @return the shared DaoMetrics
+     */
+    public static DaoMetrics getMetrics() {
+        return DaoMetricsHolder.INSTANCE;
+    }
+
+    private static boolean isOptimisticLockingEnabled() {
+        return Boolean.parseBoolean(DB.getProperties().getProperty("dao.optimisticLocking", "false").trim());
+    }
+
+    private static boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(DB.getProperties().getProperty("metrics.enabled", "false").trim());
+    }
+
+    /**
+     * Creates a PayrollDao computing aggregates in the database.
+     * With {@code payroll.useSummaryTable} set, per-department aggregates are read from the
+     * trigger-maintained {@code department_payroll} table instead of grouping the seller table.
+     *
+     * @return a new instance of PayrollDaoJDBC borrowing connections from the shared pool
+     */
+    public static PayrollDao createPayrollDao() {
+        PayrollDao dao = new PayrollDaoJDBC(
+                DB.getTransactionManager(),
+                Boolean.parseBoolean(DB.getProperties().getProperty("payroll.useSummaryTable", "false").trim())
+        );
+        return isMetricsEnabled() ? getMetrics().wrap(PayrollDao.class, dao) : dao;
+    }
+
+    /**
+     * Creates a loader inserting sellers with {@code LOAD DATA LOCAL INFILE}, resolving their
+     * departments through the shared department cache. It requires {@code bulkLoad.allowLocalInfile}.
+     *
+     * @return a new SellerBulkLoader borrowing connections from the shared pool
+     */
+    public static SellerBulkLoader createSellerBulkLoader() {
+        return new SellerBulkLoader(DB.getTransactionManager(), createCachingDepartmentDao());
+    }
+
+    /**
+     * Loads an off-heap columnar snapshot of the sellers for analytics scans, read from a replica
+     * when one is configured. The caller must close it to free its memory.
+     * With {@code snapshot.path} set, it starts from the file saved by the previous run, catching up
+     * through the change feed, and the shared department cache is filled from it unless
+     * {@code dao.optimisticLocking} is set, as the snapshot holds no department versions.
+     *
+     * @return a new SellerSnapshot of the current sellers
+     */
+    public static SellerSnapshot createSellerSnapshot() {
+        if (getSnapshotPath() == null) {
+            return SellerSnapshot.load(DB.getTransactionManager());
+        }
+        SellerSnapshot snapshot = createSellerSnapshotStore().open();
+        if (!isOptimisticLockingEnabled()) {
+            createCachingDepartmentDao().preload(snapshot.getDepartments());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates a store keeping the seller snapshot in the file named by {@code snapshot.path}, if any.
+     * Refreshes look back {@code snapshot.refreshWindowMillis} for changes of long transactions.
+     * It requires the change feed tables.
+     *
+     * @return a new SellerSnapshotStore over the JDBC DAOs
+     */
+    public static SellerSnapshotStore createSellerSnapshotStore() {
+        return new SellerSnapshotStore(
+                DB.getTransactionManager(),
+                createSellerDao(),
+                createDepartmentDao(),
+                getSnapshotPath(),
+                DB.getIntProperty("snapshot.refreshWindowMillis", 60000)
+        );
+    }
+
+    private static Path getSnapshotPath() {
+        String path = DB.getProperties().getProperty("snapshot.path", "").trim();
+        return path.isEmpty() ? null : Path.of(path);
+    }
+
+    /**
+     * Creates an asynchronous SellerDao running its calls on virtual threads.
+     * All asynchronous DAOs share one executor, whose concurrency limit comes from
+     * {@code async.maxConcurrency} in {@code db.properties}, capped at the pool size (its default).
+     *
+     * @return a new instance of SellerDaoAsyncImpl over a JDBC SellerDao
+     */
+    public static SellerDaoAsync createSellerDaoAsync() {
+        return new SellerDaoAsyncImpl(createSellerDao(), DaoExecutorHolder.INSTANCE);
+    }
+
+    /**
+     * Creates an asynchronous DepartmentDao running its calls on virtual threads.
+     *
+     * @return a new instance of DepartmentDaoAsyncImpl over a JDBC DepartmentDao
+     */
+    public static DepartmentDaoAsync createDepartmentDaoAsync() {
+        return new DepartmentDaoAsyncImpl(createDepartmentDao(), DaoExecutorHolder.INSTANCE);
+    }
+
+    /**
+     * Runs work in one transaction. Every DAO created by this factory joins it while the work runs,
+     * so their writes commit together; the transaction is rolled back if the work throws.
+     *
+     * @param work the DAO calls to group
+     */
+    public static void inTransaction(Consumer<DaoContext> work) {
+        callInTransaction(ctx -> {
+            work.accept(ctx);
+            return null;
+        });
+    }
+
+    /**
+     * Runs work in one transaction with the given isolation level.
+     *
+     * @param isolation one of the {@link java.sql.Connection} isolation constants
+     * @param work the DAO calls to group
+     */
+    public static void inTransaction(int isolation, Consumer<DaoContext> work) {
+        TransactionManager tm = DB.getTransactionManager();
+        tm.inTransaction(isolation, tx -> {
+            work.accept(new DaoContext(tx, createSellerDao(), createDepartmentDao()));
+            return null;
+        });
+    }
+
+    /**
+     * Runs work returning a result in one transaction.
+     *
+     * @param work the DAO calls to group
+     * @return the work's result
+     */
+    public static <T> T callInTransaction(Function<DaoContext, T> work) {
+        TransactionManager tm = DB.getTransactionManager();
+        return tm.inTransaction(tx -> work.apply(new DaoContext(tx, createSellerDao(), createDepartmentDao())));
+    }
+
+    /**
+     * Runs work in one transaction, starting over in a new transaction when an update hits an
+     * optimistic lock conflict. The work must read the rows it updates, since each attempt
+     * sees the latest committed data.
+     *
+     * @param maxAttempts total number of attempts
+     * @param work the DAO calls to group
+     * @return the work's result
+     * @throws db.OptimisticLockException if every attempt conflicted
+     */
+    public static <T> T callInTransactionWithRetry(int maxAttempts, Function<DaoContext, T> work) {
+        return OptimisticRetry.call(maxAttempts, () -> callInTransaction(work));
+    }
+
+    /**
+     * Opens a unit of work with an identity map over the JDBC DAOs.
+     * It should live no longer than one request.
+     *
+     * @return a new, empty UnitOfWork
+     */
+    public static UnitOfWork openUnitOfWork() {
+        return new UnitOfWork(createSellerDao(), createDepartmentDao(), DB.getTransactionManager());
+    }
+
+    /**
+     * Returns the shared DepartmentDao that serves reads from an in-memory cache.
+     * Size and time to live come from the {@code departmentCache.*} keys of {@code db.properties}.
+     *
+     * @return the caching DepartmentDao shared by the application
+     */
+    public static CachingDepartmentDao createCachingDepartmentDao() {
+        return CachingDepartmentDaoHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a poller of the change feed (see {@code db/change_feed.sql}) that keeps the shared
+     * department cache in step with writes made by other processes. Batch size, poll interval,
+     * gap timeout and gap horizon come from the {@code changeFeed.*} keys of {@code db.properties}.
+     * Further listeners can be added before calling {@link ChangeFeedPoller#start()}.
+     *
+     * @param consumer name under which the poller's position is stored, unique per process
+     * @return a new, not yet started ChangeFeedPoller
+     */
+    public static ChangeFeedPoller createChangeFeedPoller(String consumer) {
+        ChangeFeedPoller poller = new ChangeFeedPoller(
+                DB.getConnectionPool(),
+                consumer,
+                DB.getIntProperty("changeFeed.batchSize", 500),
+                DB.getIntProperty("changeFeed.pollMillis", 1000),
+                DB.getIntProperty("changeFeed.gapTimeoutMillis", 500),
+                DB.getIntProperty("changeFeed.gapHorizonMillis", 3600000)
+        );
+        poller.addListener(createCachingDepartmentDao());
+        return poller;
+    }
+
+    private static class CachingDepartmentDaoHolder {
+        // Refills follow invalidations by writes, so they read the primary rather than a lagging replica
+        private static final CachingDepartmentDao INSTANCE = new CachingDepartmentDao(
+                createDepartmentDao(DB.getTransactionManager().withPrimaryReads()),
+                DB.getTransactionManager(),
+                DB.getIntProperty("departmentCache.maxSize", 1000),
+                DB.getIntProperty("departmentCache.ttlMillis", 300000)
+        );
+    }
+
+    private static class DaoMetricsHolder {
+        private static final DaoMetrics INSTANCE = new DaoMetrics(DB.getIntProperty("metrics.slowQueryMillis", 200));
+
+        static {
+            registerMBean(INSTANCE, "model.dao:type=DaoMetrics");
+            registerMBean(DB.getConnectionPool(), "db:type=ConnectionPool");
+        }
+
+        private static void registerMBean(Object mbean, String name) {
+            try {
+                ObjectName objectName = new ObjectName(name);
+                if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+                }
+            } catch (JMException e) {
+                throw new DbException(e.getMessage());
+            }
+        }
+    }
+
+    private static class DaoExecutorHolder {
+        // Calls pin their carrier thread during queries, so none may wait for a connection (see DaoExecutor)
+        private static final DaoExecutor INSTANCE = new DaoExecutor(Math.min(
+                DB.getIntProperty("async.maxConcurrency", DB.getConnectionPool().getMaxSize()),
+                DB.getConnectionPool().getMaxSize()
+        ));
     }
 }
@@ -0,0 +1,55 @@
+package model.dao;
+
+import java.util.Arrays;
+
+/**
+ * Number of sellers per department, held in parallel primitive arrays sorted by department ID.
+ * Departments without sellers are absent.
+ */
+public class DepartmentCounts {
+
+    private final int[] departmentIds;
+    private final long[] counts;
+
+    public DepartmentCounts(int[] departmentIds, long[] counts) {
+        this.departmentIds = departmentIds;
+        this.counts = counts;
+    }
+
+    public int size() {
+        return departmentIds.length;
+    }
+
+    public int getDepartmentId(int index) {
+        return departmentIds[index];
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @return the number of sellers in the department, 0 if it has none.
+     */
+    public long countOf(int departmentId) {
+        int index = Arrays.binarySearch(departmentIds, departmentId);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DepartmentCounts{");
+        for (int i = 0; i < departmentIds.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(departmentIds[i]).append('=').append(counts[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -1,15 +1,24 @@
 package model.dao;
 
 import model.entities.Department;
+import model.entities.DepartmentField;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface DepartmentDao {
 
     void insert(Department obj);
     void update(Department obj);
+    void update(Department obj, Set<DepartmentField> fields);
     void deleteById(Integer id);
+    void insertAll(Collection<Department> objs);
+    void updateAll(Collection<Department> objs);
+    void deleteByIds(Collection<Integer> ids);
     Department findById(Integer id);
+    Map<Integer, Department> findByIds(Collection<Integer> ids);
     List<Department> findAll();
 
 }
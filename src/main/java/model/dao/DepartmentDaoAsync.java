@@ -0,0 +1,24 @@
+package model.dao;
+
+import model.entities.Department;
+import model.entities.DepartmentField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public interface DepartmentDaoAsync {
+
+    CompletableFuture<Void> insert(Department obj);
+    CompletableFuture<Void> update(Department obj);
+    CompletableFuture<Void> update(Department obj, Set<DepartmentField> fields);
+    CompletableFuture<Void> deleteById(Integer id);
+    CompletableFuture<Void> insertAll(Collection<Department> objs);
+    CompletableFuture<Void> updateAll(Collection<Department> objs);
+    CompletableFuture<Void> deleteByIds(Collection<Integer> ids);
+    CompletableFuture<Department> findById(Integer id);
+    CompletableFuture<Map<Integer, Department>> findByIds(Collection<Integer> ids);
+    CompletableFuture<List<Department>> findAll();
+}
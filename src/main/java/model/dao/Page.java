@@ -0,0 +1,44 @@
+package model.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ * The continuation token identifies the last row of the page and is passed back
+ * (decoded with {@link PageToken#decode(String)}) to read the next page.
+ * @param <T> type of the items.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String continuationToken;
+
+    public Page(List<T> items, String continuationToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.continuationToken = continuationToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return token for the next page, or null if this is the last page.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public boolean hasNext() {
+        return continuationToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items +
+                ", continuationToken='" + continuationToken + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package model.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page: its ID and, for name-ordered queries, its name, which may be NULL.
+ * Encoded as an opaque URL-safe string so it can be handed to API clients.
+ */
+public class PageToken {
+
+    /** Marks a name-ordered position whose name is NULL, in place of {@code ":" + name}. */
+    private static final char NULL_NAME = '!';
+
+    private final Integer afterId;
+    private final String afterName;
+    private final boolean nameOrdered;
+
+    /**
+     * Position of an ID-ordered query.
+     */
+    public PageToken(Integer afterId) {
+        this(afterId, null, false);
+    }
+
+    /**
+     * Position of a name-ordered query.
+     * @param afterName name of the last row, or null if it has none.
+     */
+    public PageToken(Integer afterId, String afterName) {
+        this(afterId, afterName, true);
+    }
+
+    private PageToken(Integer afterId, String afterName, boolean nameOrdered) {
+        this.afterId = afterId;
+        this.afterName = afterName;
+        this.nameOrdered = nameOrdered;
+    }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public String getAfterName() {
+        return afterName;
+    }
+
+    /**
+     * @return whether this is the position of a name-ordered query, whose name may then be null.
+     */
+    public boolean isNameOrdered() {
+        return nameOrdered;
+    }
+
+    public String encode() {
+        String raw = !nameOrdered ? String.valueOf(afterId)
+                : afterName == null ? afterId + String.valueOf(NULL_NAME)
+                : afterId + ":" + afterName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     * @param token continuation token of a page.
+     * @return the decoded position.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static PageToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep < 0 && !raw.isEmpty() && raw.charAt(raw.length() - 1) == NULL_NAME) {
+                return new PageToken(Integer.valueOf(raw.substring(0, raw.length() - 1)), null);
+            }
+            if (sep < 0) {
+                return new PageToken(Integer.valueOf(raw));
+            }
+            return new PageToken(Integer.valueOf(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+}
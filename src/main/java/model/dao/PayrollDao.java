@@ -0,0 +1,11 @@
+package model.dao;
+
+/**
+ * Payroll aggregates over the sellers, computed by the database.
+ */
+public interface PayrollDao {
+
+    DepartmentCounts countByDepartment();
+    SalaryStats salaryStatsByDepartment();
+    SalaryHistogram headcountHistogram(double bandWidth);
+}
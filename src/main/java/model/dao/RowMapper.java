@@ -0,0 +1,17 @@
+package model.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object, for projection queries.
+ * @param <T> type the rows are mapped to.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row. Implementations must not move the cursor.
+     */
+    T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,53 @@
+package model.dao;
+
+/**
+ * Number of sellers per base salary band of a fixed width.
+ * Band number {@code b} covers salaries from {@code b * bandWidth} inclusive to {@code (b + 1) * bandWidth} exclusive.
+ * Only populated bands are present, in ascending order, so a narrow width over a wide salary range costs
+ * no more than the number of sellers.
+ */
+public class SalaryHistogram {
+
+    private final double bandWidth;
+    private final long[] bands;
+    private final long[] counts;
+
+    /**
+     * @param bands numbers of the populated bands, ascending.
+     * @param counts number of sellers in each of them.
+     */
+    public SalaryHistogram(double bandWidth, long[] bands, long[] counts) {
+        this.bandWidth = bandWidth;
+        this.bands = bands;
+        this.counts = counts;
+    }
+
+    public double getBandWidth() {
+        return bandWidth;
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    public long getBand(int index) {
+        return bands[index];
+    }
+
+    public double getLowerBound(int index) {
+        return bands[index] * bandWidth;
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SalaryHistogram{");
+        for (int i = 0; i < counts.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(getLowerBound(i)).append('=').append(counts[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
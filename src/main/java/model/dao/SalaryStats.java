@@ -0,0 +1,73 @@
+package model.dao;
+
+import java.util.Arrays;
+
+/**
+ * Base salary count, sum, minimum and maximum per department, held in parallel primitive arrays
+ * sorted by department ID. Departments without sellers are absent.
+ */
+public class SalaryStats {
+
+    private final int[] departmentIds;
+    private final long[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+
+    public SalaryStats(int[] departmentIds, long[] counts, double[] sums, double[] mins, double[] maxs) {
+        this.departmentIds = departmentIds;
+        this.counts = counts;
+        this.sums = sums;
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    public int size() {
+        return departmentIds.length;
+    }
+
+    /**
+     * @return the index of the department, or a negative value if it has no sellers.
+     */
+    public int indexOf(int departmentId) {
+        return Arrays.binarySearch(departmentIds, departmentId);
+    }
+
+    public int getDepartmentId(int index) {
+        return departmentIds[index];
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    public double getSum(int index) {
+        return sums[index];
+    }
+
+    public double getAverage(int index) {
+        return sums[index] / counts[index];
+    }
+
+    public double getMin(int index) {
+        return mins[index];
+    }
+
+    public double getMax(int index) {
+        return maxs[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SalaryStats{");
+        for (int i = 0; i < departmentIds.length; i++) {
+            sb.append(i == 0 ? "" : ", ")
+                    .append(departmentIds[i]).append("={count=").append(counts[i])
+                    .append(", sum=").append(sums[i])
+                    .append(", avg=").append(getAverage(i))
+                    .append(", min=").append(mins[i])
+                    .append(", max=").append(maxs[i]).append('}');
+        }
+        return sb.append('}').toString();
+    }
+}
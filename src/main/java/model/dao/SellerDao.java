@@ -2,15 +2,40 @@ package model.dao;
 
 import model.entities.Department;
 import model.entities.Seller;
+import model.entities.SellerField;
+import model.entities.SellerSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface SellerDao {
 
     void insert(Seller obj);
     void update(Seller obj);
+    void update(Seller obj, Set<SellerField> fields);
     void deleteById(Integer id);
+    void insertAll(Collection<Seller> objs);
+    void updateAll(Collection<Seller> objs);
+    void deleteByIds(Collection<Integer> ids);
+    UpsertResult upsert(Seller obj);
+    UpsertResult upsertAll(Collection<Seller> objs);
     Seller findById(Integer id);
+    Map<Integer, Seller> findByIds(Collection<Integer> ids);
     List<Seller> findAll();
+    List<SellerSummary> findAllSummaries();
+    List<Seller> findAll(Set<SellerField> fields);
+    <T> List<T> findAll(Set<SellerField> fields, RowMapper<T> mapper);
     List<Seller> findByDepartment(Department department);
+    List<Seller> find(SellerQuery query);
+    Page<Seller> findAll(Integer afterId, int limit);
+    Page<Seller> findByDepartment(Department department, String afterName, Integer afterId, int limit);
+    Stream<Seller> streamAll();
+    Stream<Seller> streamByDepartment(Department department);
+    void forEach(Consumer<? super Seller> action);
+    void exportAll(int partitions, boolean ordered, Consumer<? super Seller> action);
+    void exportByDepartment(int parallelism, boolean ordered, Consumer<? super Seller> action);
 }
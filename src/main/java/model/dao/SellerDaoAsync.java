@@ -0,0 +1,35 @@
+package model.dao;
+
+import model.entities.Department;
+import model.entities.Seller;
+import model.entities.SellerField;
+import model.entities.SellerSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public interface SellerDaoAsync {
+
+    CompletableFuture<Void> insert(Seller obj);
+    CompletableFuture<Void> update(Seller obj);
+    CompletableFuture<Void> update(Seller obj, Set<SellerField> fields);
+    CompletableFuture<Void> deleteById(Integer id);
+    CompletableFuture<Void> insertAll(Collection<Seller> objs);
+    CompletableFuture<Void> updateAll(Collection<Seller> objs);
+    CompletableFuture<Void> deleteByIds(Collection<Integer> ids);
+    CompletableFuture<UpsertResult> upsert(Seller obj);
+    CompletableFuture<UpsertResult> upsertAll(Collection<Seller> objs);
+    CompletableFuture<Seller> findById(Integer id);
+    CompletableFuture<Map<Integer, Seller>> findByIds(Collection<Integer> ids);
+    CompletableFuture<List<Seller>> findAll();
+    CompletableFuture<List<SellerSummary>> findAllSummaries();
+    CompletableFuture<List<Seller>> findAll(Set<SellerField> fields);
+    <T> CompletableFuture<List<T>> findAll(Set<SellerField> fields, RowMapper<T> mapper);
+    CompletableFuture<List<Seller>> findByDepartment(Department department);
+    CompletableFuture<List<Seller>> find(SellerQuery query);
+    CompletableFuture<Page<Seller>> findAll(Integer afterId, int limit);
+    CompletableFuture<Page<Seller>> findByDepartment(Department department, String afterName, Integer afterId, int limit);
+}
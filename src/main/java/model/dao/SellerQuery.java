@@ -0,0 +1,164 @@
+package model.dao;
+
+import model.entities.Department;
+import model.entities.SellerField;
+
+import java.util.Date;
+
+/**
+ * Criteria for {@link SellerDao#find(SellerQuery)}, built fluently:
+ * {@code SellerQuery.where().salaryBetween(2000.0, 4000.0).nameStartsWith("Jo").orderBy(SellerField.NAME).limit(20)}.
+ * Only matching sellers are read. Each criterion maps to a fixed SQL predicate with open bounds bound
+ * as extreme values, so the number of distinct SQL texts stays small and their statements are reused.
+ */
+public class SellerQuery {
+
+    private Double minSalary;
+    private Double maxSalary;
+    private String namePrefix;
+    private Integer departmentId;
+    private Date bornFrom;
+    private Date bornTo;
+    private SellerField orderBy;
+    private boolean descending;
+    private Integer limit;
+
+    private SellerQuery() {
+    }
+
+    /**
+     * @return a query matching every seller, ordered by ID.
+     */
+    public static SellerQuery where() {
+        return new SellerQuery();
+    }
+
+    /**
+     * Keeps sellers whose base salary is within the bounds, inclusive.
+     * @param min lower bound, or null for none.
+     * @param max upper bound, or null for none.
+     */
+    public SellerQuery salaryBetween(Double min, Double max) {
+        this.minSalary = min;
+        this.maxSalary = max;
+        return this;
+    }
+
+    /**
+     * Keeps sellers whose name starts with the prefix, compared with the column's collation.
+     */
+    public SellerQuery nameStartsWith(String prefix) {
+        this.namePrefix = prefix;
+        return this;
+    }
+
+    public SellerQuery department(Department department) {
+        this.departmentId = department.getId();
+        return this;
+    }
+
+    /**
+     * Keeps sellers born within the dates, inclusive.
+     * @param from first date, or null for none.
+     * @param to last date, or null for none.
+     */
+    public SellerQuery bornBetween(Date from, Date to) {
+        this.bornFrom = from;
+        this.bornTo = to;
+        return this;
+    }
+
+    /**
+     * Sorts by the field's column, ascending; ties are broken by ID.
+     */
+    public SellerQuery orderBy(SellerField field) {
+        this.orderBy = field;
+        this.descending = false;
+        return this;
+    }
+
+    /**
+     * Sorts by the field's column, descending; ties are broken by ID.
+     */
+    public SellerQuery orderByDescending(SellerField field) {
+        this.orderBy = field;
+        this.descending = true;
+        return this;
+    }
+
+    /**
+     * Returns at most {@code n} sellers.
+     */
+    public SellerQuery limit(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + n);
+        }
+        this.limit = n;
+        return this;
+    }
+
+    public boolean hasSalaryRange() {
+        return minSalary != null || maxSalary != null;
+    }
+
+    public Double getMinSalary() {
+        return minSalary;
+    }
+
+    public Double getMaxSalary() {
+        return maxSalary;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public Integer getDepartmentId() {
+        return departmentId;
+    }
+
+    public boolean hasBirthDateRange() {
+        return bornFrom != null || bornTo != null;
+    }
+
+    public Date getBornFrom() {
+        return bornFrom;
+    }
+
+    public Date getBornTo() {
+        return bornTo;
+    }
+
+    /**
+     * @return the sort field, or null to sort by ID.
+     */
+    public SellerField getOrderBy() {
+        return orderBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return the maximum number of sellers, or null for no limit.
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "SellerQuery{" +
+                "minSalary=" + minSalary +
+                ", maxSalary=" + maxSalary +
+                ", namePrefix='" + namePrefix + '\'' +
+                ", departmentId=" + departmentId +
+                ", bornFrom=" + bornFrom +
+                ", bornTo=" + bornTo +
+                ", orderBy=" + orderBy +
+                ", descending=" + descending +
+                ", limit=" + limit +
+                '}';
+    }
+}
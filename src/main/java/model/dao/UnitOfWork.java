@@ -0,0 +1,214 @@
+package model.dao;
+
+import db.TransactionManager;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request-scoped session over the DAOs.
+ * Keeps an identity map of the sellers and departments it has loaded, so repeated lookups
+ * of the same ID return the same instance without a query. {@link #commit()} writes only the
+ * fields the entities report as dirty, and they are marked clean when its transaction commits.
+ * The commit runs in one transaction, so either all pending changes are written or none.
+ * A unit of work is meant to be used by a single thread and discarded at the end of the request.
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+    private final TransactionManager transactionManager;
+
+    private final Map<Integer, Seller> sellers = new HashMap<>();
+    private final Map<Integer, Department> departments = new HashMap<>();
+
+    private final List<Department> newDepartments = new ArrayList<>();
+    private final List<Seller> newSellers = new ArrayList<>();
+    private final Map<Integer, Seller> deletedSellers = new LinkedHashMap<>();
+    private final Map<Integer, Department> deletedDepartments = new LinkedHashMap<>();
+
+    /**
+     * @param sellerDao DAO used to load and write sellers.
+     * @param departmentDao DAO used to load and write departments.
+     * @param transactionManager manager the DAOs were built on, used to commit atomically.
+     */
+    public UnitOfWork(SellerDao sellerDao, DepartmentDao departmentDao, TransactionManager transactionManager) {
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Finds a seller, querying the database only the first time the ID is requested.
+     * @param id ID of the seller.
+     * @return the managed Seller instance, or null if it does not exist.
+     */
+    public Seller findSeller(Integer id) {
+        Seller obj = sellers.get(id);
+        if (obj != null || deletedSellers.containsKey(id)) {
+            return obj;
+        }
+        obj = sellerDao.findById(id);
+        if (obj == null) {
+            return null;
+        }
+        return manage(obj);
+    }
+
+    /**
+     * Finds a department, querying the database only the first time the ID is requested.
+     * @param id ID of the department.
+     * @return the managed Department instance, or null if it does not exist.
+     */
+    public Department findDepartment(Integer id) {
+        Department dep = departments.get(id);
+        if (dep != null || deletedDepartments.containsKey(id)) {
+            return dep;
+        }
+        dep = departmentDao.findById(id);
+        if (dep == null) {
+            return null;
+        }
+        return manage(dep);
+    }
+
+    /**
+     * Finds the sellers of a department, returning already managed instances for sellers loaded before.
+     * @param department Department filter.
+     * @return list of managed sellers.
+     */
+    public List<Seller> findSellersByDepartment(Department department) {
+        List<Seller> list = new ArrayList<>();
+        for (Seller obj : sellerDao.findByDepartment(department)) {
+            if (!deletedSellers.containsKey(obj.getId())) {
+                Seller managed = sellers.get(obj.getId());
+                list.add(managed != null ? managed : manage(obj));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Schedules a new seller for insertion on commit.
+     */
+    public void registerNew(Seller obj) {
+        newSellers.add(obj);
+    }
+
+    /**
+     * Schedules a new department for insertion on commit. New departments are inserted before new sellers.
+     */
+    public void registerNew(Department dep) {
+        newDepartments.add(dep);
+    }
+
+    /**
+     * Schedules a managed or detached seller for deletion on commit.
+     */
+    public void registerDeleted(Seller obj) {
+        sellers.remove(obj.getId());
+        deletedSellers.put(obj.getId(), obj);
+    }
+
+    /**
+     * Schedules a managed or detached department for deletion on commit.
+     */
+    public void registerDeleted(Department dep) {
+        departments.remove(dep.getId());
+        deletedDepartments.put(dep.getId(), dep);
+    }
+
+    /**
+     * Writes pending changes: inserts new entities, updates the changed fields of managed ones and deletes removed ones.
+     * Entities written are marked clean only once the transaction commits, so after a failed commit
+     * their changes are still pending; the unit of work should nevertheless be discarded.
+     */
+    public void commit() {
+        transactionManager.inTransaction(tx -> {
+            flush();
+            return null;
+        });
+    }
+
+    private void flush() {
+        if (!newDepartments.isEmpty()) {
+            departmentDao.insertAll(newDepartments);
+            newDepartments.forEach(this::manage);
+            newDepartments.clear();
+        }
+
+        // Only dirty entities are written, in one batch per set of changed fields
+        departmentDao.updateAll(departments.values());
+
+        if (!newSellers.isEmpty()) {
+            sellerDao.insertAll(newSellers);
+            newSellers.forEach(this::track);
+            newSellers.clear();
+        }
+
+        sellerDao.updateAll(sellers.values());
+
+        if (!deletedSellers.isEmpty()) {
+            sellerDao.deleteByIds(new ArrayList<>(deletedSellers.keySet()));
+            deletedSellers.clear();
+        }
+        if (!deletedDepartments.isEmpty()) {
+            departmentDao.deleteByIds(new ArrayList<>(deletedDepartments.keySet()));
+            deletedDepartments.clear();
+        }
+    }
+
+    /**
+     * Forgets every managed entity and pending change.
+     */
+    public void clear() {
+        sellers.clear();
+        departments.clear();
+        newDepartments.clear();
+        newSellers.clear();
+        deletedSellers.clear();
+        deletedDepartments.clear();
+    }
+
+    /**
+     * Discards the unit of work without writing pending changes.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Adds a freshly loaded seller to the identity map, sharing its department with the managed one.
+     */
+    private Seller manage(Seller obj) {
+        Department dep = obj.getDepartment();
+        if (dep != null && dep.getId() != null) {
+            Department managed = departments.get(dep.getId());
+            if (managed == null) {
+                managed = manage(dep);
+            }
+            obj.setDepartment(managed);
+        }
+        return track(obj);
+    }
+
+    /**
+     * Adds a seller to the identity map as is. Used for inserted sellers, whose
+     * department may be a reference holding only an ID and must not enter the map.
+     */
+    private Seller track(Seller obj) {
+        sellers.put(obj.getId(), obj);
+        return obj;
+    }
+
+    private Department manage(Department dep) {
+        departments.put(dep.getId(), dep);
+        return dep;
+    }
+}
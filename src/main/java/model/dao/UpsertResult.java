@@ -0,0 +1,42 @@
+package model.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an upsert: the IDs of the sellers that were inserted and of those that updated an existing row.
+ */
+public class UpsertResult {
+
+    private final List<Integer> insertedIds;
+    private final List<Integer> updatedIds;
+
+    public UpsertResult(List<Integer> insertedIds, List<Integer> updatedIds) {
+        this.insertedIds = Collections.unmodifiableList(insertedIds);
+        this.updatedIds = Collections.unmodifiableList(updatedIds);
+    }
+
+    public List<Integer> getInsertedIds() {
+        return insertedIds;
+    }
+
+    public List<Integer> getUpdatedIds() {
+        return updatedIds;
+    }
+
+    public int getInsertedCount() {
+        return insertedIds.size();
+    }
+
+    public int getUpdatedCount() {
+        return updatedIds.size();
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{" +
+                "insertedIds=" + insertedIds +
+                ", updatedIds=" + updatedIds +
+                '}';
+    }
+}
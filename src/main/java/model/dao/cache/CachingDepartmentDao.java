@@ -0,0 +1,398 @@
+package model.dao.cache;
+
+import db.TransactionManager;
+import model.dao.DepartmentDao;
+import model.dao.changes.ChangeEvent;
+import model.dao.changes.ChangeListener;
+import model.entities.Department;
+import model.entities.DepartmentField;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Read-through cache in front of another DepartmentDao.
+ * Lookups by ID and the full list are served from memory until they expire;
+ * every write goes to the underlying DAO and then invalidates the affected entries.
+ * Departments are mutable, so callers always receive copies of the cached objects.
+ * Registered with a change feed, it also drops departments written by other processes.
+ * Departments read while an invalidation happens are returned but not cached, as they may be stale.
+ * <p>
+ * Inside a transaction, written departments are dropped again once it commits or rolls back, since
+ * other threads may cache the previous rows until then. Departments a transaction reads are not cached,
+ * as they may include its uncommitted changes, and once it has written departments its reads bypass
+ * the cache, so it sees its own changes.
+ * Writes made through another DepartmentDao only reach the cache if it is wrapped with
+ * {@link #invalidateOnWrites(DepartmentDao)}.
+ */
+public class CachingDepartmentDao implements DepartmentDao, ChangeListener {
+
+    private final DepartmentDao delegate;
+    private final TransactionManager transactionManager;
+    private final EntityCache<Integer, Department> byId;
+    private final EntityCache<Boolean, List<Department>> all;
+    /** Set while the current thread's transaction has written departments through this cache. */
+    private final ThreadLocal<Boolean> writtenInTransaction = new ThreadLocal<>();
+
+    /**
+     * @param delegate DAO that reads and writes the database.
+     * @param maxSize maximum number of departments cached by ID.
+     * @param ttlMillis time after which cached departments are read again.
+     */
+    public CachingDepartmentDao(DepartmentDao delegate, int maxSize, long ttlMillis) {
+        this(delegate, null, maxSize, ttlMillis);
+    }
+
+    /**
+     * @param delegate DAO that reads and writes the database.
+     * @param transactionManager manager whose transactions the delegate joins, or null if it joins none.
+     * @param maxSize maximum number of departments cached by ID.
+     * @param ttlMillis time after which cached departments are read again.
+     */
+    public CachingDepartmentDao(DepartmentDao delegate, TransactionManager transactionManager, int maxSize, long ttlMillis) {
+        this.delegate = delegate;
+        this.transactionManager = transactionManager;
+        this.byId = new EntityCache<>(maxSize, ttlMillis);
+        this.all = new EntityCache<>(1, ttlMillis);
+    }
+
+    @Override
+    public void insert(Department obj) {
+        try {
+            delegate.insert(obj);
+        } finally {
+            written(List.of());
+        }
+    }
+
+    @Override
+    public void update(Department obj) {
+        try {
+            delegate.update(obj);
+        } finally {
+            written(Collections.singletonList(obj.getId()));
+        }
+    }
+
+    @Override
+    public void update(Department obj, Set<DepartmentField> fields) {
+        try {
+            delegate.update(obj, fields);
+        } finally {
+            written(Collections.singletonList(obj.getId()));
+        }
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            written(Collections.singletonList(id));
+        }
+    }
+
+    @Override
+    public void insertAll(Collection<Department> objs) {
+        try {
+            delegate.insertAll(objs);
+        } finally {
+            written(List.of());
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Department> objs) {
+        try {
+            delegate.updateAll(objs);
+        } finally {
+            written(idsOf(objs));
+        }
+    }
+
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        try {
+            delegate.deleteByIds(ids);
+        } finally {
+            written(new ArrayList<>(ids));
+        }
+    }
+
+    @Override
+    public Department findById(Integer id) {
+        if (writtenInTransaction.get() != null) {
+            return delegate.findById(id);
+        }
+        Department dep = byId.get(id);
+        if (dep == null) {
+            long generation = byId.generation();
+            dep = delegate.findById(id);
+            if (dep == null) {
+                return null;
+            }
+            if (!inTransaction()) {
+                byId.put(id, copy(dep), generation);
+            }
+        }
+        return copy(dep);
+    }
+
+    /**
+     * Serves the cached departments from memory and loads the missing ones with a single bulk lookup.
+     */
+    @Override
+    public Map<Integer, Department> findByIds(Collection<Integer> ids) {
+        if (writtenInTransaction.get() != null) {
+            return delegate.findByIds(ids);
+        }
+        TreeMap<Integer, Department> found = new TreeMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new TreeSet<>(ids)) {
+            Department dep = byId.get(id);
+            if (dep != null) {
+                found.put(id, copy(dep));
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = byId.generation();
+            boolean cacheable = !inTransaction();
+            for (Department dep : delegate.findByIds(missing).values()) {
+                if (cacheable) {
+                    byId.put(dep.getId(), copy(dep), generation);
+                }
+                found.put(dep.getId(), dep);
+            }
+        }
+        return new LinkedHashMap<>(found);
+    }
+
+    @Override
+    public List<Department> findAll() {
+        if (writtenInTransaction.get() != null) {
+            return delegate.findAll();
+        }
+        List<Department> list = all.get(Boolean.TRUE);
+        if (list == null) {
+            long generation = byId.generation();
+            long allGeneration = all.generation();
+            boolean cacheable = !inTransaction();
+            list = new ArrayList<>();
+            for (Department dep : delegate.findAll()) {
+                Department cached = copy(dep);
+                list.add(cached);
+                if (cacheable) {
+                    byId.put(cached.getId(), cached, generation);
+                }
+            }
+            if (cacheable) {
+                all.put(Boolean.TRUE, list, allGeneration);
+            }
+        }
+        List<Department> result = new ArrayList<>(list.size());
+        for (Department dep : list) {
+            result.add(copy(dep));
+        }
+        return result;
+    }
+
+    /**
+     * Fills the cache with departments read elsewhere, such as a snapshot, so startup needs no query.
+     * Under optimistic locking they must carry their versions, or updating them fails.
+     * @param deps every department; they are copied.
+     */
+    public void preload(Collection<Department> deps) {
+        List<Department> list = new ArrayList<>(deps.size());
+        for (Department dep : deps) {
+            Department cached = copy(dep);
+            list.add(cached);
+            byId.put(cached.getId(), cached);
+        }
+        all.put(Boolean.TRUE, list);
+    }
+
+    /**
+     * Wraps another DAO on the same tables so its writes drop the departments they touch from this cache,
+     * as writes through the cache itself do. Reads go straight to the wrapped DAO.
+     * @param dao DAO to wrap, typically one reading without a cache.
+     */
+    public DepartmentDao invalidateOnWrites(DepartmentDao dao) {
+        return new InvalidatingDepartmentDao(dao);
+    }
+
+    /**
+     * Drops a department and the cached full list, e.g. after it changed outside this DAO.
+     */
+    public void invalidate(Integer id) {
+        byId.invalidate(id);
+        all.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        all.invalidateAll();
+    }
+
+    /**
+     * Drops the departments a change feed reports as written.
+     */
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        boolean changed = false;
+        for (ChangeEvent event : events) {
+            if (event.entity() == ChangeEvent.Entity.DEPARTMENT) {
+                byId.invalidate(event.entityId());
+                changed = true;
+            }
+        }
+        if (changed) {
+            all.invalidateAll();
+        }
+    }
+
+    /**
+     * @return cache of lookups by ID, for its hit-rate metrics.
+     */
+    public EntityCache<Integer, Department> getCache() {
+        return byId;
+    }
+
+    /**
+     * Drops written departments, and the full list, now and again once the current transaction, if any,
+     * has ended.
+     */
+    private void written(List<Integer> ids) {
+        Runnable drop = () -> {
+            for (Integer id : ids) {
+                byId.invalidate(id);
+            }
+            all.invalidateAll();
+        };
+        drop.run();
+        if (inTransaction()) {
+            if (writtenInTransaction.get() == null) {
+                writtenInTransaction.set(Boolean.TRUE);
+                transactionManager.afterCompletion(writtenInTransaction::remove);
+            }
+            transactionManager.afterCompletion(drop);
+        }
+    }
+
+    private boolean inTransaction() {
+        return transactionManager != null && transactionManager.isInTransaction();
+    }
+
+    private static List<Integer> idsOf(Collection<Department> objs) {
+        List<Integer> ids = new ArrayList<>(objs.size());
+        for (Department obj : objs) {
+            ids.add(obj.getId());
+        }
+        return ids;
+    }
+
+    private static Department copy(Department dep) {
+        Department copy = new Department(dep.getId(), dep.getName());
+        copy.setVersion(dep.getVersion());
+        copy.markClean();
+        return copy;
+    }
+
+    /**
+     * DepartmentDao whose writes invalidate the enclosing cache.
+     */
+    private final class InvalidatingDepartmentDao implements DepartmentDao {
+
+        private final DepartmentDao dao;
+
+        InvalidatingDepartmentDao(DepartmentDao dao) {
+            this.dao = dao;
+        }
+
+        @Override
+        public void insert(Department obj) {
+            try {
+                dao.insert(obj);
+            } finally {
+                written(List.of());
+            }
+        }
+
+        @Override
+        public void update(Department obj) {
+            try {
+                dao.update(obj);
+            } finally {
+                written(Collections.singletonList(obj.getId()));
+            }
+        }
+
+        @Override
+        public void update(Department obj, Set<DepartmentField> fields) {
+            try {
+                dao.update(obj, fields);
+            } finally {
+                written(Collections.singletonList(obj.getId()));
+            }
+        }
+
+        @Override
+        public void deleteById(Integer id) {
+            try {
+                dao.deleteById(id);
+            } finally {
+                written(Collections.singletonList(id));
+            }
+        }
+
+        @Override
+        public void insertAll(Collection<Department> objs) {
+            try {
+                dao.insertAll(objs);
+            } finally {
+                written(List.of());
+            }
+        }
+
+        @Override
+        public void updateAll(Collection<Department> objs) {
+            try {
+                dao.updateAll(objs);
+            } finally {
+                written(idsOf(objs));
+            }
+        }
+
+        @Override
+        public void deleteByIds(Collection<Integer> ids) {
+            try {
+                dao.deleteByIds(ids);
+            } finally {
+                written(new ArrayList<>(ids));
+            }
+        }
+
+        @Override
+        public Department findById(Integer id) {
+            return dao.findById(id);
+        }
+
+        @Override
+        public Map<Integer, Department> findByIds(Collection<Integer> ids) {
+            return dao.findByIds(ids);
+        }
+
+        @Override
+        public List<Department> findAll() {
+            return dao.findAll();
+        }
+    }
+}
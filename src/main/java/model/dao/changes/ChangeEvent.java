@@ -0,0 +1,27 @@
+package model.dao.changes;
+
+import java.time.Instant;
+
+/**
+ * A row written to the seller or department table, as recorded in the change outbox.
+ * Events carry the key of the row, not its data; listeners read the current state if they need it.
+ *
+ * @param seq position in the feed, increasing with commit order up to concurrent writers.
+ * @param entity table that was written.
+ * @param entityId ID of the written row.
+ * @param operation kind of write.
+ * @param changedAt time of the write.
+ */
+public record ChangeEvent(long seq, Entity entity, int entityId, Operation operation, Instant changedAt) {
+
+    public enum Entity {
+        SELLER,
+        DEPARTMENT
+    }
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+}
@@ -0,0 +1,418 @@
+package model.dao.changes;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Polls the change outbox (see {@code db/change_feed.sql}) and passes new events to its listeners
+ * in batches. The position of each named consumer is stored in {@code change_feed_offset}, so a
+ * restarted poller resumes where it stopped; a consumer without a stored position starts after the
+ * latest change.
+ * <p>
+ * Sequence numbers are assigned when a change is written but become visible when its transaction
+ * commits, so a missing number may belong to a transaction still in progress, such as a long bulk load,
+ * or to one that was rolled back. Delivery waits at such a gap for {@code gapTimeoutMillis}, which keeps
+ * events of short transactions in order. It then moves on, but keeps looking for the missing numbers
+ * and delivers their events late, out of order, if they appear within {@code gapHorizonMillis}; only
+ * then is a gap taken to be a rollback and given up.
+ * <p>
+ * The stored position stays below the oldest open gap, so a restarted poller delivers the events
+ * after it again. Delivery is therefore at least once, and complete for transactions that commit within
+ * {@code gapHorizonMillis} of their first change.
+ */
+public class ChangeFeedPoller implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("model.dao.changes");
+
+    private static final String FIND_OFFSET_SQL = "SELECT Seq FROM change_feed_offset WHERE Consumer = ?";
+
+    private static final String LATEST_SEQ_SQL = "SELECT COALESCE(MAX(Seq), 0) FROM change_outbox";
+
+    private static final String SAVE_OFFSET_SQL = """
+            INSERT INTO change_feed_offset
+                (Consumer, Seq)
+            VALUES
+                (?, ?)
+            ON DUPLICATE KEY UPDATE Seq = VALUES(Seq)
+            """;
+
+    private static final String FIND_CHANGES_SQL = """
+            SELECT Seq, EntityType, EntityId, Operation, ChangedAt
+            FROM change_outbox
+            WHERE Seq > ?
+            ORDER BY Seq
+            LIMIT ?
+            """;
+
+    /** Largest number of gaps looked up in one statement. */
+    private static final int MAX_GAPS_PER_QUERY = 64;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM change_outbox
+            WHERE Seq <= (SELECT MIN(Seq) FROM change_feed_offset)
+            LIMIT ?
+            """;
+
+    private final ConnectionProvider connectionProvider;
+    private final String consumer;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long gapTimeoutMillis;
+    private final long gapHorizonMillis;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private long offset = -1;
+    private long delivered = -1;
+    private TreeMap<Long, Gap> gaps = new TreeMap<>();
+    private long gapSeq = -1;
+    private long gapSince;
+
+    /**
+     * @param connectionProvider source of connections to the primary database.
+     * @param consumer name under which the position is stored, unique per poller.
+     * @param batchSize maximum number of events read and delivered per poll.
+     * @param pollMillis interval between polls once started.
+     * @param gapTimeoutMillis how long a missing sequence number holds delivery back.
+     * @param gapHorizonMillis how long a skipped sequence number is still looked for, which should exceed
+     * the longest transaction writing sellers or departments.
+     */
+    public ChangeFeedPoller(ConnectionProvider connectionProvider, String consumer, int batchSize,
+                            long pollMillis, long gapTimeoutMillis, long gapHorizonMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.connectionProvider = connectionProvider;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.gapHorizonMillis = gapHorizonMillis;
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts polling every {@code pollMillis} on a background thread. A poll drains the backlog
+     * batch after batch; failures are logged and retried at the next poll.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed-" + consumer);
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling. Events already read but not acknowledged are delivered again by the next poller.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (poll() == batchSize) {
+                // A full batch means more changes may be waiting
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Change feed poll failed for consumer " + consumer, e);
+        }
+    }
+
+    /**
+     * Reads the next batch, late events of open gaps first, delivers it to every listener and then
+     * stores the new position.
+     * @return number of events delivered.
+     * @throws RuntimeException thrown by a listener, in which case the position is not advanced.
+     */
+    public synchronized int poll() {
+        if (offset < 0) {
+            offset = loadOffset();
+            delivered = offset;
+        }
+        TreeMap<Long, Gap> nextGaps = new TreeMap<>(gaps);
+        List<ChangeEvent> events = readLateChanges(nextGaps);
+        events.addAll(readChanges(nextGaps, batchSize - events.size()));
+        expireGaps(nextGaps);
+
+        if (!events.isEmpty()) {
+            List<ChangeEvent> batch = Collections.unmodifiableList(events);
+            for (ChangeListener listener : listeners) {
+                listener.onChanges(batch);
+            }
+        }
+        long nextDelivered = delivered;
+        for (ChangeEvent event : events) {
+            nextDelivered = Math.max(nextDelivered, event.seq());
+        }
+        long nextOffset = nextGaps.isEmpty() ? nextDelivered : nextGaps.firstKey() - 1;
+        if (nextOffset != offset) {
+            saveOffset(nextOffset);
+        }
+        offset = nextOffset;
+        delivered = nextDelivered;
+        gaps = nextGaps;
+        return events.size();
+    }
+
+    /**
+     * @return stored position: every event up to it was delivered, or -1 before the first poll.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Deletes outbox rows every consumer has processed.
+     * @param limit maximum number of rows deleted.
+     * @return number of rows deleted.
+     */
+    public int purgeConsumed(int limit) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        try {
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(PURGE_SQL);
+            st.setInt(1, limit);
+            return st.executeUpdate();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Reads the events after the delivered position, up to the first gap that has not timed out.
+     * Gaps moved past are added to {@code nextGaps}.
+     */
+    private List<ChangeEvent> readChanges(TreeMap<Long, Gap> nextGaps, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(FIND_CHANGES_SQL);
+            st.setLong(1, delivered);
+            st.setInt(2, limit);
+
+            rs = st.executeQuery();
+
+            List<ChangeEvent> events = new ArrayList<>();
+            long expected = delivered + 1;
+            while (rs.next()) {
+                long seq = rs.getLong(1);
+                if (seq != expected) {
+                    if (!gapTimedOut(expected)) {
+                        break;
+                    }
+                    nextGaps.put(expected, new Gap(seq - 1, gapSince));
+                }
+                events.add(toEvent(rs));
+                expected = seq + 1;
+            }
+            return events;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Reads events that appeared in open gaps, up to a batch, and narrows the gaps in {@code nextGaps}
+     * to the numbers still missing.
+     */
+    private List<ChangeEvent> readLateChanges(TreeMap<Long, Gap> nextGaps) {
+        List<ChangeEvent> events = new ArrayList<>();
+        List<Map.Entry<Long, Gap>> pending = new ArrayList<>(nextGaps.entrySet());
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            for (int from = 0; from < pending.size() && events.size() < batchSize; from += MAX_GAPS_PER_QUERY) {
+                List<Map.Entry<Long, Gap>> chunk = pending.subList(from, Math.min(pending.size(), from + MAX_GAPS_PER_QUERY));
+                if (conn == null) {
+                    conn = connectionProvider.getConnection();
+                }
+                st = conn.prepareStatement(findInGapsSql(chunk.size()));
+                int i = 1;
+                for (Map.Entry<Long, Gap> gap : chunk) {
+                    st.setLong(i++, gap.getKey());
+                    st.setLong(i++, gap.getValue().last());
+                }
+                st.setInt(i, batchSize - events.size());
+                rs = st.executeQuery();
+                List<ChangeEvent> found = new ArrayList<>();
+                while (rs.next()) {
+                    found.add(toEvent(rs));
+                }
+                DB.closeResultSet(rs);
+                DB.closeStatement(st);
+                rs = null;
+                st = null;
+
+                for (ChangeEvent event : found) {
+                    Map.Entry<Long, Gap> gap = nextGaps.floorEntry(event.seq());
+                    nextGaps.remove(gap.getKey());
+                    if (gap.getKey() < event.seq()) {
+                        nextGaps.put(gap.getKey(), new Gap(event.seq() - 1, gap.getValue().since()));
+                    }
+                    if (event.seq() < gap.getValue().last()) {
+                        nextGaps.put(event.seq() + 1, gap.getValue());
+                    }
+                }
+                events.addAll(found);
+            }
+            return events;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Gives up gaps older than the horizon, taking their numbers to belong to rolled back transactions.
+     */
+    private void expireGaps(TreeMap<Long, Gap> nextGaps) {
+        long now = System.currentTimeMillis();
+        nextGaps.entrySet().removeIf(gap -> {
+            boolean expired = now - gap.getValue().since() >= gapHorizonMillis;
+            if (expired) {
+                LOG.fine("Change feed " + consumer + " gave up sequence numbers "
+                        + gap.getKey() + " to " + gap.getValue().last());
+            }
+            return expired;
+        });
+    }
+
+    private static String findInGapsSql(int gapCount) {
+        StringJoiner ranges = new StringJoiner(" OR ");
+        for (int i = 0; i < gapCount; i++) {
+            ranges.add("Seq BETWEEN ? AND ?");
+        }
+        return "SELECT Seq, EntityType, EntityId, Operation, ChangedAt FROM change_outbox WHERE "
+                + ranges + " ORDER BY Seq LIMIT ?";
+    }
+
+    private static ChangeEvent toEvent(ResultSet rs) throws SQLException {
+        return new ChangeEvent(
+                rs.getLong(1),
+                ChangeEvent.Entity.valueOf(rs.getString(2)),
+                rs.getInt(3),
+                ChangeEvent.Operation.valueOf(rs.getString(4)),
+                rs.getTimestamp(5).toInstant()
+        );
+    }
+
+    /**
+     * @return whether delivery has waited long enough for the missing sequence number.
+     */
+    private boolean gapTimedOut(long missingSeq) {
+        long now = System.currentTimeMillis();
+        if (gapSeq != missingSeq) {
+            gapSeq = missingSeq;
+            gapSince = now;
+        }
+        return now - gapSince >= gapTimeoutMillis;
+    }
+
+    private long loadOffset() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(FIND_OFFSET_SQL);
+            st.setString(1, consumer);
+            rs = st.executeQuery();
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+        long latest = latestSeq();
+        saveOffset(latest);
+        return latest;
+    }
+
+    private long latestSeq() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(LATEST_SEQ_SQL);
+            rs = st.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    private void saveOffset(long seq) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        try {
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(SAVE_OFFSET_SQL);
+            st.setString(1, consumer);
+            st.setLong(2, seq);
+            st.executeUpdate();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Sequence numbers from a gap's first to {@code last} not yet seen, missing since {@code since}.
+     */
+    private record Gap(long last, long since) {
+    }
+}
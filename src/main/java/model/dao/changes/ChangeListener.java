@@ -0,0 +1,19 @@
+package model.dao.changes;
+
+import java.util.List;
+
+/**
+ * Receives the events of a change feed, mostly in feed order.
+ * Delivery is at least once: a batch is delivered again if any listener throws or its offset
+ * could not be saved, and after a restart events following a still open gap are delivered again,
+ * so listeners must tolerate repeated events. Events of a long transaction may arrive after
+ * later ones (see {@link ChangeFeedPoller}).
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    /**
+     * @param events events in sequence order.
+     */
+    void onChanges(List<ChangeEvent> events);
+}
@@ -0,0 +1,84 @@
+package model.dao.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking DAO calls on virtual threads, one thread per call.
+ * A fair semaphore caps how many calls hit the database at once, so a burst of
+ * virtual threads queues here instead of overrunning the connection pool.
+ * <p>
+ * MySQL Connector/J 8.x guards its socket I/O with {@code synchronized}, which pins a virtual thread
+ * to its carrier for the whole of each blocking query. Running calls therefore scale only up to the
+ * number of carriers (the CPU count by default), not with the number of virtual threads; what the
+ * executor saves is the platform thread per queued call. The limit must not exceed the pool size,
+ * or calls waiting for a connection while pinned could occupy every carrier.
+ */
+public class DaoExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore limiter;
+    private final int maxConcurrency;
+
+    /**
+     * @param maxConcurrency maximum number of DAO calls running at the same time,
+     *                       at most the size of the connection pool.
+     */
+    public DaoExecutor(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.limiter = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Runs a DAO call asynchronously.
+     * @param call the blocking call.
+     * @return future completed with the call's result, or exceptionally with the exception it threw.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            limiter.acquireUninterruptibly();
+            try {
+                return call.get();
+            } finally {
+                limiter.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs a DAO call without result asynchronously.
+     * @param call the blocking call.
+     * @return future completed when the call returns.
+     */
+    public CompletableFuture<Void> run(Runnable call) {
+        return submit(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return number of calls currently waiting for a slot.
+     */
+    public int getQueuedCount() {
+        return limiter.getQueueLength();
+    }
+
+    /**
+     * Stops accepting calls and waits for the running ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,80 @@
+package model.dao.impl;
+
+import model.dao.DepartmentDao;
+import model.dao.DepartmentDaoAsync;
+import model.entities.Department;
+import model.entities.DepartmentField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous DepartmentDao: each call runs the blocking DAO method on a virtual thread of a {@link DaoExecutor}.
+ */
+public class DepartmentDaoAsyncImpl implements DepartmentDaoAsync {
+
+    private final DepartmentDao dao;
+    private final DaoExecutor executor;
+
+    /**
+     * @param dao blocking DAO the calls are delegated to.
+     * @param executor executor that runs and throttles the calls.
+     */
+    public DepartmentDaoAsyncImpl(DepartmentDao dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> insert(Department obj) {
+        return executor.run(() -> dao.insert(obj));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Department obj) {
+        return executor.run(() -> dao.update(obj));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Department obj, Set<DepartmentField> fields) {
+        return executor.run(() -> dao.update(obj, fields));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteById(Integer id) {
+        return executor.run(() -> dao.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> insertAll(Collection<Department> objs) {
+        return executor.run(() -> dao.insertAll(objs));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAll(Collection<Department> objs) {
+        return executor.run(() -> dao.updateAll(objs));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIds(Collection<Integer> ids) {
+        return executor.run(() -> dao.deleteByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Department> findById(Integer id) {
+        return executor.submit(() -> dao.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, Department>> findByIds(Collection<Integer> ids) {
+        return executor.submit(() -> dao.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<List<Department>> findAll() {
+        return executor.submit(dao::findAll);
+    }
+}
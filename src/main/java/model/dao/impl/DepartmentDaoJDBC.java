@@ -1,13 +1,22 @@
 package model.dao.impl;
 
+import db.ConnectionProvider;
 import db.DB;
 import db.DbException;
+import db.OptimisticLockException;
 import model.dao.DepartmentDao;
 import model.entities.Department;
+import model.entities.DepartmentField;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JDBC implementation of the DepartmentDao interface.
@@ -15,14 +24,114 @@ import java.util.List;
  */
 public class DepartmentDaoJDBC implements DepartmentDao {
 
-    private Connection conn;
+    /** Rows sent per JDBC batch when no chunk size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO department
+                (Name)
+            VALUES
+                (?)
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE department
+            SET Name = ?
+            WHERE Id = ?
+            """;
+
+    private static final String VERSIONED_UPDATE_SQL = """
+            UPDATE department
+            SET Name = ?, Version = Version + 1
+            WHERE Id = ? AND Version = ?
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM department WHERE Id = ?";
+
+    private static final String[] FIND_BY_IDS_SQL = InClause.sqlPerBucket(
+            "SELECT " + DepartmentRowMapper.COLUMNS + " FROM department WHERE Id IN ", " ORDER BY Id");
+
+    /** SELECTs with the version column added to their select list, by plain SQL text. */
+    private static final Map<String, String> VERSIONED_SELECT_SQL = new ConcurrentHashMap<>();
+
+    private ConnectionProvider connectionProvider;
+    private int batchSize;
+    private boolean optimisticLocking;
+
+    /**
+     * Constructs the DAO with a connection provider.
+     * A connection is borrowed for each operation and given back when it completes.
+     * @param connectionProvider source of JDBC connections for database operations.
+     */
+    public DepartmentDaoJDBC(ConnectionProvider connectionProvider) {
+        this(connectionProvider, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs the DAO with a connection provider and the chunk size used by the batch operations.
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param batchSize number of rows sent to the database per batch.
+     */
+    public DepartmentDaoJDBC(ConnectionProvider connectionProvider, int batchSize) {
+        this(connectionProvider, batchSize, false);
+    }
+
+    /**
+     * Constructs the DAO, optionally with optimistic locking.
+     * With optimistic locking, queries also read the {@code Version} column (see {@code db/optimistic_locking.sql})
+     * and updates only apply to the version that was read, failing with an {@link OptimisticLockException} otherwise.
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param batchSize number of rows sent to the database per batch.
+     * @param optimisticLocking whether updates check and increment the row version.
+     */
+    public DepartmentDaoJDBC(ConnectionProvider connectionProvider, int batchSize, boolean optimisticLocking) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.connectionProvider = connectionProvider;
+        this.batchSize = batchSize;
+        this.optimisticLocking = optimisticLocking;
+    }
 
     /**
-     * Constructs the DAO with a database connection.
-     * @param conn JDBC connection to be used for database operations.
+     * Returns the SELECT as is, or with the version column in its select list under optimistic locking.
      */
-    public DepartmentDaoJDBC(Connection conn) {
-        this.conn = conn;
+    private String select(String sql) {
+        if (!optimisticLocking) {
+            return sql;
+        }
+        return VERSIONED_SELECT_SQL.computeIfAbsent(sql,
+                plain -> plain.replace(DepartmentRowMapper.COLUMNS, DepartmentRowMapper.VERSIONED_COLUMNS));
+    }
+
+    /**
+     * Under optimistic locking, checks that the department carries the version it was read with.
+     */
+    private void requireVersion(Department obj) {
+        if (optimisticLocking && obj.getVersion() == null) {
+            throw new IllegalArgumentException("Department " + obj.getId() + " has no version, read it before updating it.");
+        }
+    }
+
+    /**
+     * Reports an update that matched no row: a version conflict under optimistic locking, otherwise a missing row.
+     */
+    private DbException noRowsAffected(Department obj) {
+        if (optimisticLocking) {
+            return new OptimisticLockException("Department", obj.getId(), obj.getVersion());
+        }
+        return new DbException("No rows affected for department id " + obj.getId());
+    }
+
+    /**
+     * Binds the update parameters of a department, ID (and version, under optimistic locking) last.
+     */
+    private void bindUpdate(PreparedStatement st, Department obj) throws SQLException {
+        st.setString(1, obj.getName());
+        st.setInt(2, obj.getId());
+        if (optimisticLocking) {
+            st.setInt(3, obj.getVersion());
+        }
     }
 
     /**
@@ -32,18 +141,12 @@ public class DepartmentDaoJDBC implements DepartmentDao {
      */
     @Override
     public void insert(Department obj) {
+        Connection conn = null;
         PreparedStatement st = null;
         ResultSet rs = null;
         try {
-            st = conn.prepareStatement(
-                    """
-                    INSERT INTO department
-                        (Name)
-                    VALUES
-                        (?)
-                    """,
-                    PreparedStatement.RETURN_GENERATED_KEYS
-            );
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
 
             st.setString(1, obj.getName());
 
@@ -54,6 +157,10 @@ public class DepartmentDaoJDBC implements DepartmentDao {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     obj.setId(id); // Set the generated ID back to the object
+                    if (optimisticLocking) {
+                        obj.setVersion(0);
+                    }
+                    obj.markClean();
                 } else {
                     throw new DbException("Unexpected error! No rows affected.");
                 }
@@ -61,41 +168,68 @@ public class DepartmentDaoJDBC implements DepartmentDao {
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.close(rs, st, conn);
         }
     }
 
     /**
      * Updates an existing department in the database.
+     * Nothing is sent when a department loaded by this DAO was not changed since.
+     * Under optimistic locking the department's version is checked and incremented.
+     * The department is marked clean once the write is committed.
      * @param obj Department object with updated data.
+     * @throws OptimisticLockException if the department changed since its version was read.
      */
     @Override
     public void update(Department obj) {
+        if (obj.getDirtyFields().isEmpty()) {
+            return;
+        }
+        write(obj, true);
+    }
+
+    /**
+     * Updates only the given columns of an existing department. Does nothing when no field is given.
+     * @param obj Department object with updated data.
+     * @param fields fields whose columns are written.
+     */
+    @Override
+    public void update(Department obj, Set<DepartmentField> fields) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        // Name is the only updatable column, so the full update is also the partial one
+        write(obj, false);
+    }
+
+    /**
+     * Writes the department's columns, checking and incrementing its version under optimistic locking.
+     * @param markClean whether the department is marked clean once the write is committed.
+     */
+    private void write(Department obj, boolean markClean) {
+        requireVersion(obj);
+        Connection conn = null;
         PreparedStatement st = null;
         try {
-            st = conn.prepareStatement(
-                    """
-                    UPDATE department
-                    SET Name = ?
-                    WHERE Id = ?
-                    """
-            );
-
-            st.setString(1, obj.getName());
-            st.setInt(2, obj.getId());
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(optimisticLocking ? VERSIONED_UPDATE_SQL : UPDATE_SQL);
+            bindUpdate(st, obj);
 
             int rowsAffected = st.executeUpdate();
 
-            if (rowsAffected > 0) {
-                System.out.println("Update completed. Number of rows affected: " + rowsAffected);
-            } else {
-                throw new DbException("No rows affected.");
+            if (rowsAffected == 0) {
+                throw noRowsAffected(obj);
+            }
+            if (optimisticLocking) {
+                obj.setVersion(obj.getVersion() + 1);
+            }
+            if (markClean) {
+                markCleanOnCommit(conn, false, List.of(obj));
             }
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
+            DB.close(st, conn);
         }
     }
 
@@ -105,11 +239,11 @@ public class DepartmentDaoJDBC implements DepartmentDao {
      */
     @Override
     public void deleteById(Integer id) {
+        Connection conn = null;
         PreparedStatement st = null;
         try {
-            st = conn.prepareStatement(
-                    "DELETE FROM department WHERE Id = ?"
-            );
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(DELETE_SQL);
 
             st.setInt(1, id);
 
@@ -121,7 +255,228 @@ public class DepartmentDaoJDBC implements DepartmentDao {
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Inserts departments with JDBC batching, {@code batchSize} rows per round trip.
+     * Generated IDs are assigned back to each department in iteration order.
+     * Runs in a single transaction unless the connection already belongs to one.
+     * @param objs departments to be inserted.
+     */
+    @Override
+    public void insertAll(Collection<Department> objs) {
+        if (objs.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
+            st = conn.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
+
+            List<Department> chunk = new ArrayList<>(Math.min(batchSize, objs.size()));
+            for (Department obj : objs) {
+                st.setString(1, obj.getName());
+                st.addBatch();
+                chunk.add(obj);
+                if (chunk.size() == batchSize) {
+                    executeInsertBatch(st, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                executeInsertBatch(st, chunk);
+            }
+
+            if (ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
+        } finally {
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Updates departments with JDBC batching, {@code batchSize} rows per round trip.
+     * Departments not changed since they were loaded are skipped.
+     * Runs in a single transaction unless the connection already belongs to one; the departments are
+     * marked clean once it commits.
+     * @param objs departments with updated data.
+     * @throws DbException if any of the departments no longer exists.
+     * @throws OptimisticLockException under optimistic locking, if any department changed since its version was read.
+     */
+    @Override
+    public void updateAll(Collection<Department> objs) {
+        List<Department> changed = new ArrayList<>(objs.size());
+        for (Department obj : objs) {
+            if (!obj.getDirtyFields().isEmpty()) {
+                requireVersion(obj);
+                changed.add(obj);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
+            st = conn.prepareStatement(optimisticLocking ? VERSIONED_UPDATE_SQL : UPDATE_SQL);
+
+            List<Department> chunk = new ArrayList<>(Math.min(batchSize, changed.size()));
+            for (Department obj : changed) {
+                bindUpdate(st, obj);
+                st.addBatch();
+                chunk.add(obj);
+                if (chunk.size() == batchSize) {
+                    executeUpdateBatch(st, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                executeUpdateBatch(st, chunk);
+            }
+
+            if (ownTransaction) {
+                conn.commit();
+            }
+            markCleanOnCommit(conn, ownTransaction, changed);
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
+        } finally {
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Deletes departments by ID with JDBC batching, {@code batchSize} rows per round trip.
+     * IDs that do not exist are ignored.
+     * @param ids IDs of the departments to be deleted.
+     */
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
+            st = conn.prepareStatement(DELETE_SQL);
+
+            int pending = 0;
+            for (Integer id : ids) {
+                st.setInt(1, id);
+                st.addBatch();
+                if (++pending == batchSize) {
+                    st.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                st.executeBatch();
+            }
+
+            if (ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
+        } finally {
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Executes a pending insert batch and assigns the generated IDs to the chunk's departments in order.
+     */
+    private void executeInsertBatch(PreparedStatement st, List<Department> chunk) throws SQLException {
+        st.executeBatch();
+        try (ResultSet rs = st.getGeneratedKeys()) {
+            for (Department obj : chunk) {
+                if (!rs.next()) {
+                    throw new DbException("Unexpected error! Missing generated key for department " + obj.getName());
+                }
+                obj.setId(rs.getInt(1));
+                if (optimisticLocking) {
+                    obj.setVersion(0);
+                }
+                obj.markClean();
+            }
+        }
+    }
+
+    /**
+     * Executes a pending update batch, failing if any row was not found (or, under optimistic
+     * locking, had another version). Versions are incremented once the whole batch succeeded.
+     */
+    private void executeUpdateBatch(PreparedStatement st, List<Department> chunk) throws SQLException {
+        int[] counts = st.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw noRowsAffected(chunk.get(i));
+            }
+        }
+        if (optimisticLocking) {
+            for (Department obj : chunk) {
+                obj.setVersion(obj.getVersion() + 1);
+            }
+        }
+    }
+
+    /**
+     * Marks departments clean once what was just written for them is committed: now if this DAO
+     * committed it or the connection is in auto-commit mode, otherwise when the enclosing
+     * transaction commits. Departments changed again in between stay dirty.
+     */
+    private static void markCleanOnCommit(Connection conn, boolean committed, List<Department> objs) throws SQLException {
+        int[] changeCounts = new int[objs.size()];
+        for (int i = 0; i < changeCounts.length; i++) {
+            changeCounts[i] = objs.get(i).getChangeCount();
+        }
+        Runnable markClean = () -> {
+            for (int i = 0; i < changeCounts.length; i++) {
+                objs.get(i).markClean(changeCounts[i]);
+            }
+        };
+        if (committed) {
+            markClean.run();
+        } else {
+            DB.afterCommit(conn, markClean);
         }
     }
 
@@ -132,43 +487,79 @@ public class DepartmentDaoJDBC implements DepartmentDao {
      */
     @Override
     public Department findById(Integer id) {
+        Connection conn = null;
         PreparedStatement st = null;
         ResultSet rs = null;
         try {
-            st = conn.prepareStatement(
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(
                     """
-                    SELECT department.*
+                    SELECT department.Id, department.Name
                     FROM department
                     WHERE Id = ?
                     """
-            );
+            ));
 
             st.setInt(1, id);
             rs = st.executeQuery();
 
             if (rs.next()) {
-                return instantiateDepartment(rs);
+                return new DepartmentRowMapper(rs).map(rs);
             }
             return null;
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.close(rs, st, conn);
         }
     }
 
     /**
-     * Helper method to instantiate a Department object from the ResultSet.
-     * @param rs ResultSet from a query.
-     * @return Department object.
-     * @throws SQLException if an SQL error occurs.
+     * Finds departments by a set of IDs using chunked {@code IN (...)} queries on one connection.
+     * @param ids IDs of the departments; duplicates and IDs that do not exist are ignored.
+     * @return the departments found, keyed by ID in ascending ID order.
      */
-    private Department instantiateDepartment(ResultSet rs) throws SQLException {
-        Department dep = new Department();
-        dep.setId(rs.getInt("Id"));
-        dep.setName(rs.getString("Name"));
-        return dep;
+    @Override
+    public Map<Integer, Department> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Integer[] sorted = new TreeSet<>(ids).toArray(new Integer[0]);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            Map<Integer, Department> map = new LinkedHashMap<>(sorted.length * 4 / 3 + 1);
+            DepartmentRowMapper mapper = null;
+
+            for (int from = 0; from < sorted.length; from += InClause.MAX_CHUNK) {
+                int count = Math.min(InClause.MAX_CHUNK, sorted.length - from);
+                int bucket = InClause.bucketSize(count);
+                st = conn.prepareStatement(select(InClause.sqlFor(FIND_BY_IDS_SQL, bucket)));
+                for (int i = 0; i < bucket; i++) {
+                    // Padding repeats the chunk's last ID, which IN ignores
+                    st.setInt(i + 1, sorted[from + Math.min(i, count - 1)]);
+                }
+                rs = st.executeQuery();
+                if (mapper == null) {
+                    mapper = new DepartmentRowMapper(rs); // Every chunk has the same select list
+                }
+                while (rs.next()) {
+                    Department obj = mapper.map(rs);
+                    map.put(obj.getId(), obj);
+                }
+                DB.closeResultSet(rs);
+                DB.closeStatement(st);
+                rs = null;
+                st = null;
+            }
+            return map;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
     }
 
     /**
@@ -177,30 +568,31 @@ public class DepartmentDaoJDBC implements DepartmentDao {
      */
     @Override
     public List<Department> findAll() {
+        Connection conn = null;
         PreparedStatement st = null;
         ResultSet rs = null;
         try {
-            st = conn.prepareStatement(
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(
                     """
-                    SELECT department.*
+                    SELECT department.Id, department.Name
                     FROM department
                     ORDER BY Id
                     """
-            );
+            ));
 
             rs = st.executeQuery();
             List<Department> list = new ArrayList<>();
+            DepartmentRowMapper mapper = new DepartmentRowMapper(rs);
 
             while (rs.next()) {
-                Department obj = instantiateDepartment(rs);
-                list.add(obj);
+                list.add(mapper.map(rs));
             }
             return list;
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.close(rs, st, conn);
         }
     }
 }
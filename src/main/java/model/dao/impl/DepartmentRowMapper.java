@@ -0,0 +1,53 @@
+package model.dao.impl;
+
+import model.entities.Department;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the department queries to Department objects,
+ * reading columns by indexes resolved once from the result set metadata.
+ * The version is read when the select list includes it, and mapped objects track their changes from there.
+ */
+final class DepartmentRowMapper {
+
+    /** Select list of the department queries. */
+    static final String COLUMNS = "department.Id, department.Name";
+
+    /** Select list of the department queries with optimistic locking enabled. */
+    static final String VERSIONED_COLUMNS = COLUMNS + ", department.Version";
+
+    private final int idIndex;
+    private final int nameIndex;
+    private final int versionIndex;
+
+    DepartmentRowMapper(ResultSet rs) throws SQLException {
+        idIndex = rs.findColumn("Id");
+        nameIndex = rs.findColumn("Name");
+        versionIndex = indexOf(rs, "Version");
+    }
+
+    Department map(ResultSet rs) throws SQLException {
+        Department obj = new Department(rs.getInt(idIndex), rs.getString(nameIndex));
+        if (versionIndex > 0) {
+            obj.setVersion(rs.getInt(versionIndex));
+        }
+        obj.markClean();
+        return obj;
+    }
+
+    /**
+     * @return the index of the column with the given label, or 0 if the result set has none.
+     */
+    static int indexOf(ResultSet rs, String label) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,57 @@
+package model.dao.impl;
+
+import java.util.StringJoiner;
+
+/**
+ * Helpers for chunked {@code IN (...)} queries.
+ * Chunks are padded up to a power of two so only a handful of distinct SQL texts exist,
+ * which keeps them in the prepared-statement cache.
+ */
+final class InClause {
+
+    /** Largest number of values bound in one IN list. */
+    static final int MAX_CHUNK = 256;
+
+    private InClause() {
+    }
+
+    /**
+     * @return the smallest power of two not below {@code n}, capped at {@link #MAX_CHUNK}.
+     */
+    static int bucketSize(int n) {
+        int size = 1;
+        while (size < n && size < MAX_CHUNK) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * @return {@code "(?, ?, ...)"} with {@code n} placeholders.
+     */
+    static String placeholders(int n) {
+        StringJoiner joiner = new StringJoiner(", ", "(", ")");
+        for (int i = 0; i < n; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Builds one SQL text per bucket size, indexed by log2 of the size.
+     */
+    static String[] sqlPerBucket(String prefix, String suffix) {
+        String[] sql = new String[Integer.numberOfTrailingZeros(MAX_CHUNK) + 1];
+        for (int i = 0; i < sql.length; i++) {
+            sql[i] = prefix + placeholders(1 << i) + suffix;
+        }
+        return sql;
+    }
+
+    /**
+     * @return the SQL for a bucket size produced by {@link #bucketSize(int)}.
+     */
+    static String sqlFor(String[] sqlPerBucket, int bucketSize) {
+        return sqlPerBucket[Integer.numberOfTrailingZeros(bucketSize)];
+    }
+}
@@ -0,0 +1,57 @@
+package model.dao.impl;
+
+import model.entities.Department;
+
+import java.io.Serial;
+import java.util.function.Function;
+
+/**
+ * Department of a partially loaded seller. Only the ID is known up front;
+ * the name is loaded on first access. Like the entities, it is not thread-safe.
+ */
+final class LazyDepartment extends Department {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Function<Integer, Department> loader;
+
+    LazyDepartment(Integer id, Function<Integer, Department> loader) {
+        super(id, null);
+        this.loader = loader;
+    }
+
+    @Override
+    public String getName() {
+        if (loader != null) {
+            Department loaded = loader.apply(getId());
+            loader = null;
+            if (loaded != null) {
+                super.setName(loaded.getName());
+                super.setVersion(loaded.getVersion());
+            }
+        }
+        return super.getName();
+    }
+
+    @Override
+    public Integer getVersion() {
+        getName();
+        return super.getVersion();
+    }
+
+    @Override
+    public void setName(String name) {
+        loader = null;
+        super.setName(name);
+    }
+
+    /**
+     * Serializes as a plain, fully loaded Department.
+     */
+    @Serial
+    private Object writeReplace() {
+        Department dep = new Department(getId(), getName());
+        dep.setVersion(getVersion());
+        return dep;
+    }
+}
@@ -0,0 +1,190 @@
+package model.dao.impl;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import model.dao.DepartmentCounts;
+import model.dao.PayrollDao;
+import model.dao.SalaryHistogram;
+import model.dao.SalaryStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * JDBC implementation of the PayrollDao interface.
+ * Aggregates are computed with GROUP BY on the seller table, or read from the trigger-maintained
+ * {@code department_payroll} summary table (see {@code db/department_payroll.sql}) when enabled.
+ * Results are read into primitive arrays.
+ */
+public class PayrollDaoJDBC implements PayrollDao {
+
+    private static final String COUNT_SQL = """
+            SELECT DepartmentId, COUNT(*)
+            FROM seller
+            GROUP BY DepartmentId
+            ORDER BY DepartmentId
+            """;
+
+    private static final String STATS_SQL = """
+            SELECT DepartmentId, COUNT(*), SUM(BaseSalary), MIN(BaseSalary), MAX(BaseSalary)
+            FROM seller
+            GROUP BY DepartmentId
+            ORDER BY DepartmentId
+            """;
+
+    private static final String SUMMARY_COUNT_SQL = """
+            SELECT DepartmentId, Headcount
+            FROM department_payroll
+            WHERE Headcount > 0
+            ORDER BY DepartmentId
+            """;
+
+    private static final String SUMMARY_STATS_SQL = """
+            SELECT DepartmentId, Headcount, SalarySum, MinSalary, MaxSalary
+            FROM department_payroll
+            WHERE Headcount > 0
+            ORDER BY DepartmentId
+            """;
+
+    private static final String HISTOGRAM_SQL = """
+            SELECT FLOOR(BaseSalary / ?) AS Band, COUNT(*)
+            FROM seller
+            GROUP BY Band
+            ORDER BY Band
+            """;
+
+    private ConnectionProvider connectionProvider;
+    private boolean useSummaryTable;
+
+    /**
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param useSummaryTable whether per-department aggregates are read from {@code department_payroll}.
+     */
+    public PayrollDaoJDBC(ConnectionProvider connectionProvider, boolean useSummaryTable) {
+        this.connectionProvider = connectionProvider;
+        this.useSummaryTable = useSummaryTable;
+    }
+
+    /**
+     * Counts the sellers of each department.
+     */
+    @Override
+    public DepartmentCounts countByDepartment() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(useSummaryTable ? SUMMARY_COUNT_SQL : COUNT_SQL);
+            rs = st.executeQuery();
+
+            int size = 0;
+            int[] ids = new int[16];
+            long[] counts = new long[16];
+            while (rs.next()) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                ids[size] = rs.getInt(1);
+                counts[size] = rs.getLong(2);
+                size++;
+            }
+            return new DepartmentCounts(Arrays.copyOf(ids, size), Arrays.copyOf(counts, size));
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Computes the count, sum, minimum and maximum base salary of each department.
+     */
+    @Override
+    public SalaryStats salaryStatsByDepartment() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(useSummaryTable ? SUMMARY_STATS_SQL : STATS_SQL);
+            rs = st.executeQuery();
+
+            int size = 0;
+            int[] ids = new int[16];
+            long[] counts = new long[16];
+            double[] sums = new double[16];
+            double[] mins = new double[16];
+            double[] maxs = new double[16];
+            while (rs.next()) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                    sums = Arrays.copyOf(sums, size * 2);
+                    mins = Arrays.copyOf(mins, size * 2);
+                    maxs = Arrays.copyOf(maxs, size * 2);
+                }
+                ids[size] = rs.getInt(1);
+                counts[size] = rs.getLong(2);
+                sums[size] = rs.getDouble(3);
+                mins[size] = rs.getDouble(4);
+                maxs[size] = rs.getDouble(5);
+                size++;
+            }
+            return new SalaryStats(
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(counts, size),
+                    Arrays.copyOf(sums, size),
+                    Arrays.copyOf(mins, size),
+                    Arrays.copyOf(maxs, size)
+            );
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Counts sellers per populated base salary band. Always computed from the seller table.
+     * @param bandWidth width of each salary band.
+     */
+    @Override
+    public SalaryHistogram headcountHistogram(double bandWidth) {
+        if (!(bandWidth > 0)) {
+            throw new IllegalArgumentException("Band width must be positive: " + bandWidth);
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(HISTOGRAM_SQL);
+            st.setDouble(1, bandWidth);
+            rs = st.executeQuery();
+
+            long[] bands = new long[16];
+            long[] counts = new long[16];
+            int size = 0;
+            while (rs.next()) {
+                if (size == bands.length) {
+                    bands = Arrays.copyOf(bands, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                bands[size] = rs.getLong(1);
+                counts[size] = rs.getLong(2);
+                size++;
+            }
+            return new SalaryHistogram(bandWidth, Arrays.copyOf(bands, size), Arrays.copyOf(counts, size));
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package model.dao.impl;
+
+import model.dao.Page;
+import model.dao.RowMapper;
+import model.dao.SellerDao;
+import model.dao.SellerDaoAsync;
+import model.dao.SellerQuery;
+import model.dao.UpsertResult;
+import model.entities.Department;
+import model.entities.Seller;
+import model.entities.SellerField;
+import model.entities.SellerSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous SellerDao: each call runs the blocking DAO method on a virtual thread of a {@link DaoExecutor}.
+ */
+public class SellerDaoAsyncImpl implements SellerDaoAsync {
+
+    private final SellerDao dao;
+    private final DaoExecutor executor;
+
+    /**
+     * @param dao blocking DAO the calls are delegated to.
+     * @param executor executor that runs and throttles the calls.
+     */
+    public SellerDaoAsyncImpl(SellerDao dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> insert(Seller obj) {
+        return executor.run(() -> dao.insert(obj));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Seller obj) {
+        return executor.run(() -> dao.update(obj));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Seller obj, Set<SellerField> fields) {
+        return executor.run(() -> dao.update(obj, fields));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteById(Integer id) {
+        return executor.run(() -> dao.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> insertAll(Collection<Seller> objs) {
+        return executor.run(() -> dao.insertAll(objs));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAll(Collection<Seller> objs) {
+        return executor.run(() -> dao.updateAll(objs));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIds(Collection<Integer> ids) {
+        return executor.run(() -> dao.deleteByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<UpsertResult> upsert(Seller obj) {
+        return executor.submit(() -> dao.upsert(obj));
+    }
+
+    @Override
+    public CompletableFuture<UpsertResult> upsertAll(Collection<Seller> objs) {
+        return executor.submit(() -> dao.upsertAll(objs));
+    }
+
+    @Override
+    public CompletableFuture<Seller> findById(Integer id) {
+        return executor.submit(() -> dao.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, Seller>> findByIds(Collection<Integer> ids) {
+        return executor.submit(() -> dao.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<List<Seller>> findAll() {
+        return executor.submit(dao::findAll);
+    }
+
+    @Override
+    public CompletableFuture<List<SellerSummary>> findAllSummaries() {
+        return executor.submit(dao::findAllSummaries);
+    }
+
+    @Override
+    public CompletableFuture<List<Seller>> findAll(Set<SellerField> fields) {
+        return executor.submit(() -> dao.findAll(fields));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> findAll(Set<SellerField> fields, RowMapper<T> mapper) {
+        return executor.submit(() -> dao.findAll(fields, mapper));
+    }
+
+    @Override
+    public CompletableFuture<List<Seller>> findByDepartment(Department department) {
+        return executor.submit(() -> dao.findByDepartment(department));
+    }
+
+    @Override
+    public CompletableFuture<List<Seller>> find(SellerQuery query) {
+        return executor.submit(() -> dao.find(query));
+    }
+
+    @Override
+    public CompletableFuture<Page<Seller>> findAll(Integer afterId, int limit) {
+        return executor.submit(() -> dao.findAll(afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<Seller>> findByDepartment(Department department, String afterName, Integer afterId, int limit) {
+        return executor.submit(() -> dao.findByDepartment(department, afterName, afterId, limit));
+    }
+}
@@ -1,13 +1,34 @@
 package model.dao.impl;
 
+import db.ConnectionProvider;
 import db.DB;
 import db.DbException;
+import db.OptimisticLockException;
+import model.dao.DepartmentDao;
+import model.dao.Page;
+import model.dao.PageToken;
+import model.dao.RowMapper;
 import model.dao.SellerDao;
+import model.dao.SellerQuery;
+import model.dao.UpsertResult;
 import model.entities.Department;
 import model.entities.Seller;
+import model.entities.SellerField;
+import model.entities.SellerSummary;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * JDBC implementation of the SellerDao interface.
@@ -15,14 +36,199 @@ import java.util.*;
  */
 public class SellerDaoJDBC implements SellerDao {
 
-    private Connection conn;
+    /** Rows sent per JDBC batch when no chunk size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO seller
+                (Name, Email, BirthDate, BaseSalary, DepartmentId)
+            VALUES
+                (?, ?, ?, ?, ?)
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM seller WHERE Id = ?";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO seller
+                (Id, Name, Email, BirthDate, BaseSalary, DepartmentId)
+            VALUES
+                (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Name = VALUES(Name), Email = VALUES(Email), BirthDate = VALUES(BirthDate),
+                BaseSalary = VALUES(BaseSalary), DepartmentId = VALUES(DepartmentId)
+            """;
+
+    private static final String VERSIONED_UPSERT_SQL = """
+            INSERT INTO seller
+                (Id, Name, Email, BirthDate, BaseSalary, DepartmentId)
+            VALUES
+                (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Name = VALUES(Name), Email = VALUES(Email), BirthDate = VALUES(BirthDate),
+                BaseSalary = VALUES(BaseSalary), DepartmentId = VALUES(DepartmentId), Version = Version + 1
+            """;
+
+    private static final String[] EXISTING_IDS_SQL = InClause.sqlPerBucket(
+            "SELECT Id FROM seller WHERE Id IN ", "");
+
+    private static final String[] IDS_BY_EMAILS_SQL = InClause.sqlPerBucket(
+            "SELECT Id, Email FROM seller WHERE Email IN ", "");
+
+    private static final String SELECT_SQL =
+            "SELECT " + SellerRowMapper.COLUMNS + " " +
+                    "FROM seller INNER JOIN department " +
+                    "ON seller.DepartmentId = department.Id ";
+
+    private static final String FIND_BY_ID_SQL = SELECT_SQL + "WHERE seller.Id = ?";
+
+    private static final String FIND_BY_DEPARTMENT_SQL = SELECT_SQL + "WHERE seller.DepartmentId = ? ORDER BY seller.Name";
+
+    private static final String FIND_ALL_SQL = SELECT_SQL + "ORDER BY seller.Id";
+
+    private static final String FIND_BY_ID_RANGE_SQL = SELECT_SQL + "WHERE seller.Id BETWEEN ? AND ? ORDER BY seller.Id";
+
+    private static final String ID_RANGE_SQL = "SELECT MIN(Id), MAX(Id) FROM seller";
+
+    private static final String DEPARTMENT_IDS_SQL = "SELECT DISTINCT DepartmentId FROM seller ORDER BY DepartmentId";
+
+    private static final String[] FIND_BY_IDS_SQL = InClause.sqlPerBucket(
+            SELECT_SQL + "WHERE seller.Id IN ", " ORDER BY seller.Id");
+
+    private static final String FIND_ALL_PAGE_SQL = SELECT_SQL +
+            "WHERE seller.Id > ? " +
+            "ORDER BY seller.Id " +
+            "LIMIT ?";
+
+    private static final String FIND_BY_DEPARTMENT_FIRST_PAGE_SQL = SELECT_SQL +
+            "WHERE DepartmentId = ? " +
+            "ORDER BY seller.Name, seller.Id " +
+            "LIMIT ?";
+
+    private static final String FIND_BY_DEPARTMENT_PAGE_SQL = SELECT_SQL +
+            "WHERE DepartmentId = ? " +
+            "AND (seller.Name > ? OR (seller.Name = ? AND seller.Id > ?)) " +
+            "ORDER BY seller.Name, seller.Id " +
+            "LIMIT ?";
+
+    /** Page after a seller without a name: NULL names sort first, so every named seller follows. */
+    private static final String FIND_BY_DEPARTMENT_AFTER_NULL_NAME_PAGE_SQL = SELECT_SQL +
+            "WHERE DepartmentId = ? " +
+            "AND (seller.Name IS NOT NULL OR seller.Id > ?) " +
+            "ORDER BY seller.Name, seller.Id " +
+            "LIMIT ?";
+
+    /** Largest number of sellers a keyset page holds; larger limits are capped to it. */
+    private static final int MAX_PAGE_LIMIT = 1000;
+
+    private static final Set<SellerField> SUMMARY_FIELDS = EnumSet.of(SellerField.NAME, SellerField.DEPARTMENT);
+
+    /** Marks the end of a partition in the export queues. */
+    private static final Seller END_OF_PARTITION = new Seller();
+
+    private static final RowMapper<SellerSummary> SUMMARY_MAPPER =
+            rs -> new SellerSummary(rs.getInt(1), rs.getString(2), rs.getInt(3));
+
+    /** Bounds bound in place of the open ends of SellerQuery ranges, so the SQL keeps its shape. */
+    private static final java.sql.Date MIN_BIRTH_DATE = java.sql.Date.valueOf("1000-01-01");
+    private static final java.sql.Date MAX_BIRTH_DATE = java.sql.Date.valueOf("9999-12-31");
+
+    /** SellerQuery SELECTs by shape, built once per distinct shape. */
+    private static final Map<QueryShape, String> QUERY_SQL = new ConcurrentHashMap<>();
+
+    /** SELECTs with the version columns added to their select list, by plain SQL text. */
+    private static final Map<String, String> VERSIONED_SELECT_SQL = new ConcurrentHashMap<>();
+
+    /** Projection SELECTs by field set, built once per distinct set. */
+    private static final Map<Set<SellerField>, String> PROJECTION_SQL = new ConcurrentHashMap<>();
+
+    /** UPDATEs by field set, built once per distinct set. */
+    private static final Map<Set<SellerField>, String> UPDATE_SQL = new ConcurrentHashMap<>();
+
+    /** UPDATEs checking and incrementing the version, by field set. */
+    private static final Map<Set<SellerField>, String> VERSIONED_UPDATE_SQL = new ConcurrentHashMap<>();
+
+    private ConnectionProvider connectionProvider;
+    private int batchSize;
+    private DepartmentDao departmentDao;
+    private boolean optimisticLocking;
+
+    /**
+     * Constructs the DAO with a connection provider.
+     * A connection is borrowed for each operation and given back when it completes.
+     * @param connectionProvider source of JDBC connections for database operations.
+     */
+    public SellerDaoJDBC(ConnectionProvider connectionProvider) {
+        this(connectionProvider, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs the DAO with a connection provider and the chunk size used by the batch operations.
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param batchSize number of rows sent to the database per batch.
+     */
+    public SellerDaoJDBC(ConnectionProvider connectionProvider, int batchSize) {
+        this(connectionProvider, batchSize, new DepartmentDaoJDBC(connectionProvider, batchSize));
+    }
+
+    /**
+     * Constructs the DAO with a connection provider, the batch chunk size and the DAO that loads
+     * the departments of partially loaded sellers.
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param batchSize number of rows sent to the database per batch.
+     * @param departmentDao DAO used to load departments lazily, possibly a caching one.
+     */
+    public SellerDaoJDBC(ConnectionProvider connectionProvider, int batchSize, DepartmentDao departmentDao) {
+        this(connectionProvider, batchSize, departmentDao, false);
+    }
+
+    /**
+     * Constructs the DAO, optionally with optimistic locking.
+     * With optimistic locking, queries also read the {@code Version} column (see {@code db/optimistic_locking.sql})
+     * and updates only apply to the version that was read, failing with an {@link OptimisticLockException} otherwise.
+     * @param connectionProvider source of JDBC connections for database operations.
+     * @param batchSize number of rows sent to the database per batch.
+     * @param departmentDao DAO used to load departments lazily, possibly a caching one.
+     * @param optimisticLocking whether updates check and increment the row version.
+     */
+    public SellerDaoJDBC(ConnectionProvider connectionProvider, int batchSize, DepartmentDao departmentDao,
+                         boolean optimisticLocking) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.connectionProvider = connectionProvider;
+        this.batchSize = batchSize;
+        this.departmentDao = departmentDao;
+        this.optimisticLocking = optimisticLocking;
+    }
+
+    /**
+     * Returns the SELECT as is, or with the version columns in its select list under optimistic locking.
+     */
+    private String select(String sql) {
+        if (!optimisticLocking) {
+            return sql;
+        }
+        return VERSIONED_SELECT_SQL.computeIfAbsent(sql,
+                plain -> plain.replace(SellerRowMapper.COLUMNS, SellerRowMapper.VERSIONED_COLUMNS));
+    }
+
+    /**
+     * Under optimistic locking, checks that the seller carries the version it was read with.
+     */
+    private void requireVersion(Seller obj) {
+        if (optimisticLocking && obj.getVersion() == null) {
+            throw new IllegalArgumentException("Seller " + obj.getId() + " has no version, read it before updating it.");
+        }
+    }
 
     /**
-     * Constructs the DAO with a database connection.
-     * @param conn JDBC connection to be used for database operations.
+     * Reports an update that matched no row: a version conflict under optimistic locking, otherwise a missing row.
      */
-    public SellerDaoJDBC(Connection conn) {
-        this.conn = conn;
+    private DbException noRowsAffected(Seller obj) {
+        if (optimisticLocking) {
+            return new OptimisticLockException("Seller", obj.getId(), obj.getVersion());
+        }
+        return new DbException("No rows affected for seller id " + obj.getId());
     }
 
     /**
@@ -31,24 +237,13 @@ public class SellerDaoJDBC implements SellerDao {
      */
     @Override
     public void insert(Seller obj) {
+        Connection conn = null;
         PreparedStatement st = null;
         ResultSet rs = null;
         try {
-            st = conn.prepareStatement(
-                    """
-                        INSERT INTO seller 
-                            (Name, Email, BirthDate, BaseSalary, DepartmentId)
-                        VALUES 
-                            (?, ?, ?, ?, ?)
-                        """,
-                    PreparedStatement.RETURN_GENERATED_KEYS
-            );
-
-            st.setString(1, obj.getName());
-            st.setString(2, obj.getEmail());
-            st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
-            st.setDouble(4, obj.getBaseSalary());
-            st.setInt(5, obj.getDepartment().getId());
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
+            bindInsert(st, obj);
 
             int rowsAffected = st.executeUpdate();
 
@@ -57,6 +252,10 @@ public class SellerDaoJDBC implements SellerDao {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     obj.setId(id); // Assign generated ID to the object
+                    if (optimisticLocking) {
+                        obj.setVersion(0);
+                    }
+                    obj.markClean();
                 } else {
                     throw new DbException("Unexpected error! No rows affected.");
                 }
@@ -64,44 +263,107 @@ public class SellerDaoJDBC implements SellerDao {
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.close(rs, st, conn);
         }
     }
 
     /**
      * Updates an existing seller in the database.
+     * Only the columns of the fields changed since the seller was loaded are written, and nothing
+     * is sent when none changed; sellers built by the application are written in full.
+     * Under optimistic locking the seller's version is checked and incremented.
+     * The seller is marked clean once the write is committed.
+     * @throws OptimisticLockException if the seller changed since its version was read.
      */
     @Override
     public void update(Seller obj) {
+        EnumSet<SellerField> fields = obj.getDirtyFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        write(obj, fields, true);
+    }
+
+    /**
+     * Updates only the given columns of an existing seller. Does nothing when no field is given.
+     * @param obj Seller with updated data.
+     * @param fields fields whose columns are written.
+     */
+    @Override
+    public void update(Seller obj, Set<SellerField> fields) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        write(obj, EnumSet.copyOf(fields), false);
+    }
+
+    /**
+     * Writes the given columns of a seller, checking and incrementing its version under optimistic locking.
+     * @param markClean whether the seller is marked clean once the write is committed.
+     */
+    private void write(Seller obj, EnumSet<SellerField> columns, boolean markClean) {
+        requireVersion(obj);
+        Connection conn = null;
         PreparedStatement st = null;
         try {
-            st = conn.prepareStatement(
-                    """
-                        UPDATE seller
-                        SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ?
-                        WHERE Id = ?
-                    """
-            );
-
-            st.setString(1, obj.getName());
-            st.setString(2, obj.getEmail());
-            st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
-            st.setDouble(4, obj.getBaseSalary());
-            st.setInt(5, obj.getDepartment().getId());
-            st.setInt(6, obj.getId());
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(updateSql(columns));
+            bindUpdate(st, obj, columns);
 
             int rowsAffected = st.executeUpdate();
 
-            if (rowsAffected > 0) {
-                System.out.println("Update completed. Number of rows affected: " + rowsAffected);
-            } else {
-                throw new DbException("No rows affected.");
+            if (rowsAffected == 0) {
+                throw noRowsAffected(obj);
+            }
+            if (optimisticLocking) {
+                obj.setVersion(obj.getVersion() + 1);
+            }
+            if (markClean) {
+                markCleanOnCommit(conn, false, List.of(obj));
             }
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         } finally {
-            DB.closeStatement(st);
+            DB.close(st, conn);
+        }
+    }
+
+    /**
+     * Returns the UPDATE setting the given columns, built on first use of each field set.
+     */
+    private String updateSql(EnumSet<SellerField> fields) {
+        if (optimisticLocking) {
+            return VERSIONED_UPDATE_SQL.computeIfAbsent(fields, f -> updateSql(f, true));
+        }
+        return UPDATE_SQL.computeIfAbsent(fields, f -> updateSql(f, false));
+    }
+
+    /**
+     * Builds an UPDATE setting the given columns. Fields are iterated in enum order,
+     * so each field set always yields the same SQL text and hits the statement cache.
+     */
+    private static String updateSql(Set<SellerField> fields, boolean versioned) {
+        StringJoiner set = new StringJoiner(", ", "UPDATE seller SET ",
+                versioned ? " WHERE Id = ? AND Version = ?" : " WHERE Id = ?");
+        for (SellerField field : fields) {
+            set.add(field.getColumn() + " = ?");
+        }
+        if (versioned) {
+            set.add("Version = Version + 1");
+        }
+        return set.toString();
+    }
+
+    /**
+     * Binds the value of one seller field.
+     */
+    private void bindField(PreparedStatement st, int index, Seller obj, SellerField field) throws SQLException {
+        switch (field) {
+            case NAME -> st.setString(index, obj.getName());
+            case EMAIL -> st.setString(index, obj.getEmail());
+            case BIRTH_DATE -> st.setDate(index, toSqlDate(obj.getBirthDate()));
+            case BASE_SALARY -> st.setDouble(index, obj.getBaseSalary());
+            case DEPARTMENT -> st.setInt(index, obj.getDepartment().getId());
         }
     }
 
@@ -111,9 +373,11 @@ public class SellerDaoJDBC implements SellerDao {
      */
     @Override
     public void deleteById(Integer id) {
+        Connection conn = null;
         PreparedStatement st = null;
         try {
-            st = conn.prepareStatement("DELETE FROM seller WHERE Id = ?");
+            conn = connectionProvider.getConnection();
+            st = conn.prepareStatement(DELETE_SQL);
             st.setInt(1, id);
 
             int rowsAffected = st.executeUpdate();
@@ -124,149 +388,1254 @@ public class SellerDaoJDBC implements SellerDao {
         } catch (SQLException e) {
             throw new RuntimeException(e);
         } finally {
-            DB.closeStatement(st);
+            DB.close(st, conn);
         }
     }
 
     /**
-     * Finds a seller by ID, including its department data.
-     * @param id ID of the seller to be retrieved.
-     * @return Seller object or null if not found.
+     * Inserts sellers with JDBC batching, {@code batchSize} rows per round trip.
+     * Generated IDs are assigned back to each seller in iteration order.
+     * Runs in a single transaction unless the connection already belongs to one.
+     * @param objs sellers to be inserted.
      */
     @Override
-    public Seller findById(Integer id) {
+    public void insertAll(Collection<Seller> objs) {
+        if (objs.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
         PreparedStatement st = null;
-        ResultSet rs = null;
+        boolean ownTransaction = false;
         try {
-            st = conn.prepareStatement(
-                    "SELECT seller.*, department.Name as DepName " +
-                            "FROM seller INNER JOIN department " +
-                            "ON seller.DepartmentId = department.Id " +
-                            "WHERE seller.Id = ?"
-            );
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
+            st = conn.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
 
-            st.setInt(1, id);
-            rs = st.executeQuery();
+            List<Seller> chunk = new ArrayList<>(Math.min(batchSize, objs.size()));
+            for (Seller obj : objs) {
+                bindInsert(st, obj);
+                st.addBatch();
+                chunk.add(obj);
+                if (chunk.size() == batchSize) {
+                    executeInsertBatch(st, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                executeInsertBatch(st, chunk);
+            }
 
-            if (rs.next()) {
-                Department dep = instantiateDepartment(rs);
-                Seller obj = instantiateSeller(rs, dep);
-                return obj;
+            if (ownTransaction) {
+                conn.commit();
             }
-            return null;
         } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
             throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.close(st, conn);
         }
     }
 
     /**
-     * Helper method to instantiate a Seller object from the result set.
+     * Updates sellers with JDBC batching, {@code batchSize} rows per round trip.
+     * As with {@link #update(Seller)}, only changed columns are written: sellers are batched by
+     * the set of fields they changed, one statement per set, and unchanged sellers are skipped.
+     * Runs in a single transaction unless the connection already belongs to one; the sellers are
+     * marked clean once it commits.
+     * @param objs sellers with updated data.
+     * @throws DbException if any of the sellers no longer exists.
+     * @throws OptimisticLockException under optimistic locking, if any seller changed since its version was read.
      */
-    private Seller instantiateSeller(ResultSet rs, Department dep) throws SQLException {
-        Seller obj = new Seller();
-        obj.setId(rs.getInt("Id"));
-        obj.setName(rs.getString("Name"));
-        obj.setEmail(rs.getString("Email"));
-        obj.setBaseSalary(rs.getDouble("BaseSalary"));
-        obj.setBirthDate(rs.getDate("BirthDate"));
-        obj.setDepartment(dep);
-        return obj;
-    }
+    @Override
+    public void updateAll(Collection<Seller> objs) {
+        Map<EnumSet<SellerField>, List<Seller>> byFields = new LinkedHashMap<>();
+        List<Seller> changed = new ArrayList<>();
+        for (Seller obj : objs) {
+            EnumSet<SellerField> fields = obj.getDirtyFields();
+            if (!fields.isEmpty()) {
+                requireVersion(obj);
+                byFields.computeIfAbsent(fields, f -> new ArrayList<>()).add(obj);
+                changed.add(obj);
+            }
+        }
+        if (byFields.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement st = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
 
-    /**
-     * Helper method to instantiate a Department object from the result set.
-     */
-    private Department instantiateDepartment(ResultSet rs) throws SQLException {
-        Department dep = new Department();
-        dep.setId(rs.getInt("DepartmentId"));
-        dep.setName(rs.getString("DepName"));
-        return dep;
+            for (Map.Entry<EnumSet<SellerField>, List<Seller>> group : byFields.entrySet()) {
+                EnumSet<SellerField> fields = group.getKey();
+                st = conn.prepareStatement(updateSql(fields));
+                List<Seller> chunk = new ArrayList<>(Math.min(batchSize, group.getValue().size()));
+                for (Seller obj : group.getValue()) {
+                    bindUpdate(st, obj, fields);
+                    st.addBatch();
+                    chunk.add(obj);
+                    if (chunk.size() == batchSize) {
+                        executeUpdateBatch(st, chunk);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    executeUpdateBatch(st, chunk);
+                }
+                DB.closeStatement(st);
+                st = null;
+            }
+
+            if (ownTransaction) {
+                conn.commit();
+            }
+            markCleanOnCommit(conn, ownTransaction, changed);
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
+        } finally {
+            DB.close(st, conn);
+        }
     }
 
     /**
-     * Finds all sellers associated with a specific department.
-     * @param department Department filter.
-     * @return List of sellers.
+     * Deletes sellers by ID with JDBC batching, {@code batchSize} rows per round trip.
+     * IDs that do not exist are ignored.
+     * @param ids IDs of the sellers to be deleted.
      */
-    public List<Seller> findByDepartment(Department department) {
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
         PreparedStatement st = null;
-        ResultSet rs = null;
+        boolean ownTransaction = false;
         try {
-            st = conn.prepareStatement(
-                    "SELECT seller.*, department.Name as DepName " +
-                            "FROM seller INNER JOIN department " +
-                            "ON seller.DepartmentId = department.Id " +
-                            "WHERE DepartmentId = ? " +
-                            "ORDER BY Name"
-            );
+            conn = connectionProvider.getConnection();
+            ownTransaction = DB.beginIfAutoCommit(conn);
+            st = conn.prepareStatement(DELETE_SQL);
 
-            st.setInt(1, department.getId());
-            rs = st.executeQuery();
+            int pending = 0;
+            for (Integer id : ids) {
+                st.setInt(1, id);
+                st.addBatch();
+                if (++pending == batchSize) {
+                    st.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                st.executeBatch();
+            }
 
-            List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
+            if (ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
+        } finally {
+            DB.close(st, conn);
+        }
+    }
 
-            while (rs.next()) {
-                Department dep = map.get(rs.getInt("DepartmentId"));
+    /**
+     * Inserts a seller or updates the existing one with the same key.
+     * @see #upsertAll(Collection)
+     */
+    @Override
+    public UpsertResult upsert(Seller obj) {
+        return upsertAll(List.of(obj));
+    }
+
+    /**
+     * Inserts new sellers and updates existing ones in chunks of up to {@code batchSize} rows.
+     * Sellers with an ID are matched by ID; sellers without one are matched by Email (a unique key,
+     * see {@code db/seller_indexes.sql}) and get the ID of the matching row, or a generated ID when they
+     * are inserted. Each chunk is written with one {@code INSERT ... ON DUPLICATE KEY UPDATE} batch,
+     * which the driver sends as a single statement, without locking anything first.
+     * <p>
+     * Whether a seller was inserted or updated is decided by one plain read of the chunk's IDs and Emails
+     * before the write; an affected-row count of 2, which only an update returns, also counts as updated.
+     * A concurrent write of the same key between that read and the upsert only affects how the seller
+     * is reported, not what is written. The same read rejects a seller whose Email belongs to another
+     * row, or to another seller of the chunk, since the upsert would otherwise overwrite that row.
+     * <p>
+     * Upserts overwrite without a version check; under optimistic locking they still increment the version,
+     * and updated sellers are left without one so they are read again before a checked update.
+     * More than one seller runs in a single transaction unless the connection already belongs to one.
+     * The sellers are marked clean once the write is committed.
+     * @param objs sellers to be written.
+     * @return IDs of the inserted and of the updated sellers.
+     * @throws DbException if a seller's Email belongs to a seller with another ID.
+     */
+    @Override
+    public UpsertResult upsertAll(Collection<Seller> objs) {
+        List<Integer> inserted = new ArrayList<>();
+        List<Integer> updated = new ArrayList<>();
+        if (objs.isEmpty()) {
+            return new UpsertResult(inserted, updated);
+        }
+        Connection conn = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getConnection();
+            // A single seller is one statement, which is atomic by itself
+            ownTransaction = objs.size() > 1 && DB.beginIfAutoCommit(conn);
 
-                if (dep == null) {
-                    dep = instantiateDepartment(rs);
-                    map.put(rs.getInt("DepartmentId"), dep);
+            int chunkSize = Math.min(batchSize, InClause.MAX_CHUNK);
+            List<Seller> chunk = new ArrayList<>(Math.min(chunkSize, objs.size()));
+            for (Seller obj : objs) {
+                chunk.add(obj);
+                if (chunk.size() == chunkSize) {
+                    upsertChunk(conn, chunk, inserted, updated);
+                    chunk.clear();
                 }
+            }
+            if (!chunk.isEmpty()) {
+                upsertChunk(conn, chunk, inserted, updated);
+            }
 
-                Seller obj = instantiateSeller(rs, dep);
-                list.add(obj);
+            if (ownTransaction) {
+                conn.commit();
             }
-            return list;
+            markCleanOnCommit(conn, ownTransaction, new ArrayList<>(objs));
+            return new UpsertResult(inserted, updated);
         } catch (SQLException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
             throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                DB.rollback(conn);
+            }
+            throw e;
         } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
         }
     }
 
     /**
-     * Finds all sellers in the database.
-     * @return List of all sellers.
+     * Reads which keys of a chunk exist, writes it with one upsert batch, then looks up the IDs of the
+     * sellers matched by Email.
      */
-    @Override
-    public List<Seller> findAll() {
-        PreparedStatement st = null;
-        ResultSet rs = null;
-        try {
-            st = conn.prepareStatement(
-                    "SELECT seller.*, department.Name as DepName " +
-                            "FROM seller INNER JOIN department " +
-                            "ON seller.DepartmentId = department.Id " +
-                            "ORDER BY Id"
-            );
+    private void upsertChunk(Connection conn, List<Seller> chunk, List<Integer> inserted, List<Integer> updated) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Seller obj : chunk) {
+            if (obj.getId() != null) {
+                ids.add(obj.getId());
+            }
+            if (obj.getEmail() != null) {
+                emails.add(obj.getEmail());
+            }
+        }
+        Set<Integer> existingIds = ids.isEmpty() ? Set.of() : findExistingIds(conn, ids);
+        Map<String, Integer> idsByEmail = emails.isEmpty() ? Map.of() : findIdsByEmails(conn, emails);
 
-            rs = st.executeQuery();
+        // A seller whose key an earlier seller of the chunk wrote updates that row
+        boolean[] existed = new boolean[chunk.size()];
+        Set<Integer> chunkIds = new HashSet<>();
+        Map<String, Integer> chunkEmails = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Seller obj = chunk.get(i);
+            Integer owner = idsByEmail.get(obj.getEmail());
+            if (obj.getId() != null && owner != null && !owner.equals(obj.getId())) {
+                throw new DbException("Email " + obj.getEmail() + " of seller " + obj.getId()
+                        + " already belongs to seller " + owner + ".");
+            }
+            if (chunkEmails.containsKey(obj.getEmail()) && !Objects.equals(chunkEmails.get(obj.getEmail()), obj.getId())) {
+                throw new DbException("Email " + obj.getEmail() + " is given to more than one seller.");
+            }
+            existed[i] = obj.getId() != null
+                    ? existingIds.contains(obj.getId()) || chunkIds.contains(obj.getId())
+                    : owner != null || chunkEmails.containsKey(obj.getEmail());
+            if (obj.getId() != null) {
+                chunkIds.add(obj.getId());
+            }
+            chunkEmails.put(obj.getEmail(), obj.getId());
+        }
 
-            List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
+        int[] counts;
+        try (PreparedStatement st = conn.prepareStatement(optimisticLocking ? VERSIONED_UPSERT_SQL : UPSERT_SQL)) {
+            for (Seller obj : chunk) {
+                bindUpsert(st, obj);
+                st.addBatch();
+            }
+            counts = st.executeBatch();
+        }
 
-            while (rs.next()) {
-                Department dep = map.get(rs.getInt("DepartmentId"));
+        boolean[] wasUpdate = new boolean[chunk.size()];
+        Set<String> unresolved = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Seller obj = chunk.get(i);
+            // Found-rows mode counts an unchanged row as 1, like an insert, so only 2 overrides the read
+            wasUpdate[i] = existed[i] || counts[i] == 2;
+            if (obj.getId() == null) {
+                unresolved.add(obj.getEmail());
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            idsByEmail = findIdsByEmails(conn, unresolved);
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Seller obj = chunk.get(i);
+            if (obj.getId() == null) {
+                Integer id = idsByEmail.get(obj.getEmail());
+                if (id == null) {
+                    throw new DbException("Unexpected error! Upserted seller with email " + obj.getEmail() + " not found.");
+                }
+                obj.setId(id);
+            }
+            (wasUpdate[i] ? updated : inserted).add(obj.getId());
+            if (optimisticLocking) {
+                // The new version of updated rows is unknown, so they must be read again before a checked update
+                obj.setVersion(wasUpdate[i] ? null : 0);
+            }
+        }
+    }
 
-                if (dep == null) {
-                    dep = instantiateDepartment(rs);
-                    map.put(rs.getInt("DepartmentId"), dep);
+    /**
+     * @return the given IDs that exist.
+     */
+    private Set<Integer> findExistingIds(Connection conn, Set<Integer> ids) throws SQLException {
+        Integer[] values = ids.toArray(new Integer[0]);
+        int bucket = InClause.bucketSize(values.length);
+        Set<Integer> existing = new HashSet<>();
+        try (PreparedStatement st = conn.prepareStatement(InClause.sqlFor(EXISTING_IDS_SQL, bucket))) {
+            for (int i = 0; i < bucket; i++) {
+                st.setInt(i + 1, values[Math.min(i, values.length - 1)]);
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getInt(1));
                 }
+            }
+        }
+        return existing;
+    }
 
-                Seller obj = instantiateSeller(rs, dep);
-                list.add(obj);
+    /**
+     * @return the ID of the seller having each email found.
+     */
+    private Map<String, Integer> findIdsByEmails(Connection conn, Set<String> emails) throws SQLException {
+        String[] values = emails.toArray(new String[0]);
+        int bucket = InClause.bucketSize(values.length);
+        Map<String, Integer> idsByEmail = new HashMap<>();
+        try (PreparedStatement st = conn.prepareStatement(InClause.sqlFor(IDS_BY_EMAILS_SQL, bucket))) {
+            for (int i = 0; i < bucket; i++) {
+                st.setString(i + 1, values[Math.min(i, values.length - 1)]);
             }
-            return list;
-        } catch (SQLException e) {
-            throw new DbException(e.getMessage());
-        } finally {
-            DB.closeStatement(st);
-            DB.closeResultSet(rs);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    idsByEmail.put(rs.getString(2), rs.getInt(1));
+                }
+            }
+        }
+        return idsByEmail;
+    }
+
+    /**
+     * Binds the upsert parameters of a seller, ID first; a seller without one gets a generated ID
+     * unless its Email matches.
+     */
+    private void bindUpsert(PreparedStatement st, Seller obj) throws SQLException {
+        if (obj.getId() != null) {
+            st.setInt(1, obj.getId());
+        } else {
+            st.setNull(1, Types.INTEGER);
+        }
+        st.setString(2, obj.getName());
+        st.setString(3, obj.getEmail());
+        st.setDate(4, toSqlDate(obj.getBirthDate()));
+        st.setDouble(5, obj.getBaseSalary());
+        st.setInt(6, obj.getDepartment().getId());
+    }
+
+    /**
+     * Binds the insert parameters of a seller.
+     */
+    private void bindInsert(PreparedStatement st, Seller obj) throws SQLException {
+        st.setString(1, obj.getName());
+        st.setString(2, obj.getEmail());
+        st.setDate(3, toSqlDate(obj.getBirthDate()));
+        st.setDouble(4, obj.getBaseSalary());
+        st.setInt(5, obj.getDepartment().getId());
+    }
+
+    /**
+     * Binds the update parameters of a seller in the order of {@link #updateSql(Set, boolean)},
+     * ID (and version, under optimistic locking) last.
+     */
+    private void bindUpdate(PreparedStatement st, Seller obj, EnumSet<SellerField> fields) throws SQLException {
+        int index = 1;
+        for (SellerField field : fields) {
+            bindField(st, index++, obj, field);
         }
+        st.setInt(index++, obj.getId());
+        if (optimisticLocking) {
+            st.setInt(index, obj.getVersion());
+        }
+    }
+
+    /**
+     * Executes a pending insert batch and assigns the generated IDs to the chunk's sellers in order.
+     */
+    private void executeInsertBatch(PreparedStatement st, List<Seller> chunk) throws SQLException {
+        st.executeBatch();
+        try (ResultSet rs = st.getGeneratedKeys()) {
+            for (Seller obj : chunk) {
+                if (!rs.next()) {
+                    throw new DbException("Unexpected error! Missing generated key for seller " + obj.getName());
+                }
+                obj.setId(rs.getInt(1));
+                if (optimisticLocking) {
+                    obj.setVersion(0);
+                }
+                obj.markClean();
+            }
+        }
+    }
+
+    /**
+     * Executes a pending update batch, failing if any row was not found (or, under optimistic
+     * locking, had another version). Versions are incremented once the whole batch succeeded.
+     */
+    private void executeUpdateBatch(PreparedStatement st, List<Seller> chunk) throws SQLException {
+        int[] counts = st.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw noRowsAffected(chunk.get(i));
+            }
+        }
+        if (optimisticLocking) {
+            for (Seller obj : chunk) {
+                obj.setVersion(obj.getVersion() + 1);
+            }
+        }
+    }
+
+    /**
+     * Marks sellers clean once what was just written for them is committed: now if this DAO
+     * committed it or the connection is in auto-commit mode, otherwise when the enclosing
+     * transaction commits. Sellers changed again in between stay dirty.
+     */
+    private static void markCleanOnCommit(Connection conn, boolean committed, List<Seller> objs) throws SQLException {
+        int[] changeCounts = new int[objs.size()];
+        for (int i = 0; i < changeCounts.length; i++) {
+            changeCounts[i] = objs.get(i).getChangeCount();
+        }
+        Runnable markClean = () -> {
+            for (int i = 0; i < changeCounts.length; i++) {
+                objs.get(i).markClean(changeCounts[i]);
+            }
+        };
+        if (committed) {
+            markClean.run();
+        } else {
+            DB.afterCommit(conn, markClean);
+        }
+    }
+
+    /**
+     * Finds a seller by ID, including its department data.
+     * @param id ID of the seller to be retrieved.
+     * @return Seller object or null if not found.
+     */
+    @Override
+    public Seller findById(Integer id) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(FIND_BY_ID_SQL));
+
+            st.setInt(1, id);
+            rs = st.executeQuery();
+
+            if (rs.next()) {
+                return new SellerRowMapper(rs).map(rs);
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Finds sellers by a set of IDs using chunked {@code IN (...)} queries on one connection.
+     * @param ids IDs of the sellers; duplicates and IDs that do not exist are ignored.
+     * @return the sellers found, keyed by ID in ascending ID order.
+     */
+    @Override
+    public Map<Integer, Seller> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Integer[] sorted = new TreeSet<>(ids).toArray(new Integer[0]);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            Map<Integer, Seller> map = new LinkedHashMap<>(sorted.length * 4 / 3 + 1);
+            SellerRowMapper mapper = null;
+
+            for (int from = 0; from < sorted.length; from += InClause.MAX_CHUNK) {
+                int count = Math.min(InClause.MAX_CHUNK, sorted.length - from);
+                int bucket = InClause.bucketSize(count);
+                st = conn.prepareStatement(select(InClause.sqlFor(FIND_BY_IDS_SQL, bucket)));
+                for (int i = 0; i < bucket; i++) {
+                    // Padding repeats the chunk's last ID, which IN ignores
+                    st.setInt(i + 1, sorted[from + Math.min(i, count - 1)]);
+                }
+                rs = st.executeQuery();
+                if (mapper == null) {
+                    mapper = new SellerRowMapper(rs); // Every chunk has the same select list
+                }
+                while (rs.next()) {
+                    Seller obj = mapper.map(rs);
+                    map.put(obj.getId(), obj);
+                }
+                DB.closeResultSet(rs);
+                DB.closeStatement(st);
+                rs = null;
+                st = null;
+            }
+            return map;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Converts a birth date for binding, skipping the copy when it already is a java.sql.Date
+     * (as it is for sellers read from the database).
+     */
+    private static java.sql.Date toSqlDate(java.util.Date date) {
+        return date instanceof java.sql.Date sqlDate ? sqlDate : new java.sql.Date(date.getTime());
+    }
+
+    /**
+     * Finds the sellers matching a query, filtering and sorting in the database.
+     * See {@code db/seller_indexes.sql} for the indexes the generated predicates rely on.
+     * @param query criteria, order and limit.
+     * @return matching sellers, including their department data.
+     */
+    @Override
+    public List<Seller> find(SellerQuery query) {
+        QueryShape shape = QueryShape.of(query);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(QUERY_SQL.computeIfAbsent(shape, SellerDaoJDBC::querySql)));
+
+            int index = 1;
+            if (shape.department()) {
+                st.setInt(index++, query.getDepartmentId());
+            }
+            if (shape.salary()) {
+                st.setDouble(index++, query.getMinSalary() != null ? query.getMinSalary() : -Double.MAX_VALUE);
+                st.setDouble(index++, query.getMaxSalary() != null ? query.getMaxSalary() : Double.MAX_VALUE);
+            }
+            if (shape.name()) {
+                st.setString(index++, likePrefix(query.getNamePrefix()));
+            }
+            if (shape.birthDate()) {
+                st.setDate(index++, query.getBornFrom() != null ? toSqlDate(query.getBornFrom()) : MIN_BIRTH_DATE);
+                st.setDate(index++, query.getBornTo() != null ? toSqlDate(query.getBornTo()) : MAX_BIRTH_DATE);
+            }
+            if (shape.limited()) {
+                st.setInt(index, query.getLimit());
+            }
+            rs = st.executeQuery();
+
+            List<Seller> list = new ArrayList<>();
+            SellerRowMapper mapper = new SellerRowMapper(rs);
+            while (rs.next()) {
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Which predicates, sort and limit a SellerQuery uses; queries with the same shape share their SQL.
+     */
+    private record QueryShape(boolean department, boolean salary, boolean name, boolean birthDate,
+                              SellerField orderBy, boolean descending, boolean limited) {
+
+        static QueryShape of(SellerQuery query) {
+            return new QueryShape(
+                    query.getDepartmentId() != null,
+                    query.hasSalaryRange(),
+                    query.getNamePrefix() != null,
+                    query.hasBirthDateRange(),
+                    query.getOrderBy(),
+                    query.isDescending(),
+                    query.getLimit() != null
+            );
+        }
+    }
+
+    private static String querySql(QueryShape shape) {
+        StringJoiner where = new StringJoiner(" AND ", "WHERE ", " ");
+        where.setEmptyValue("");
+        if (shape.department()) {
+            where.add("seller.DepartmentId = ?");
+        }
+        if (shape.salary()) {
+            where.add("seller.BaseSalary BETWEEN ? AND ?");
+        }
+        if (shape.name()) {
+            where.add("seller.Name LIKE ? ESCAPE '!'");
+        }
+        if (shape.birthDate()) {
+            where.add("seller.BirthDate BETWEEN ? AND ?");
+        }
+        // Ties are broken by Id in the same direction, so one index can be scanned either way
+        String direction = shape.descending() ? " DESC" : "";
+        String order = shape.orderBy() == null
+                ? "ORDER BY seller.Id" + direction
+                : "ORDER BY seller." + shape.orderBy().getColumn() + direction + ", seller.Id" + direction;
+        return SELECT_SQL + where + order + (shape.limited() ? " LIMIT ?" : "");
+    }
+
+    /**
+     * Turns a name prefix into a LIKE pattern, escaping the wildcards it contains
+     * so it stays a prefix match that can use the Name index.
+     */
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * Lists the ID, name and department ID of every seller, without joining the department table.
+     * @return summaries ordered by ID.
+     */
+    @Override
+    public List<SellerSummary> findAllSummaries() {
+        return findAll(SUMMARY_FIELDS, SUMMARY_MAPPER);
+    }
+
+    /**
+     * Finds all sellers, reading only the given fields (and the ID).
+     * Other fields are left null; the department, if requested, is a proxy holding its ID
+     * that loads the rest on first access.
+     * @param fields fields to read.
+     * @return partially loaded sellers ordered by ID.
+     */
+    @Override
+    public List<Seller> findAll(Set<SellerField> fields) {
+        EnumSet<SellerField> columns = fields.isEmpty() ? EnumSet.noneOf(SellerField.class) : EnumSet.copyOf(fields);
+        Map<Integer, Department> departments = new HashMap<>();
+        Function<Integer, Department> loader = departmentDao::findById;
+        return findAll(columns, rs -> {
+            Seller obj = new Seller();
+            obj.setId(rs.getInt(1));
+            int index = 2;
+            for (SellerField field : columns) {
+                switch (field) {
+                    case NAME -> obj.setName(rs.getString(index));
+                    case EMAIL -> obj.setEmail(rs.getString(index));
+                    case BIRTH_DATE -> obj.setBirthDate(rs.getDate(index));
+                    case BASE_SALARY -> obj.setBaseSalary(rs.getDouble(index));
+                    case DEPARTMENT -> obj.setDepartment(
+                            departments.computeIfAbsent(rs.getInt(index), id -> new LazyDepartment(id, loader)));
+                }
+                index++;
+            }
+            obj.markClean();
+            return obj;
+        });
+    }
+
+    /**
+     * Runs a projection over all sellers. The select list is the seller ID followed by the
+     * columns of the given fields in {@link SellerField} declaration order, so the mapper can read
+     * them by position; the department table is not joined.
+     * @param fields fields whose columns are selected.
+     * @param mapper maps each row.
+     * @return mapped rows ordered by seller ID.
+     */
+    @Override
+    public <T> List<T> findAll(Set<SellerField> fields, RowMapper<T> mapper) {
+        EnumSet<SellerField> columns = fields.isEmpty() ? EnumSet.noneOf(SellerField.class) : EnumSet.copyOf(fields);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(PROJECTION_SQL.computeIfAbsent(columns, SellerDaoJDBC::projectionSql));
+
+            rs = st.executeQuery();
+
+            List<T> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    private static String projectionSql(Set<SellerField> fields) {
+        StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM seller ORDER BY Id");
+        select.add("Id");
+        for (SellerField field : fields) {
+            select.add(field.getColumn());
+        }
+        return select.toString();
+    }
+
+    /**
+     * Finds all sellers associated with a specific department.
+     * @param department Department filter.
+     * @return List of sellers.
+     */
+    public List<Seller> findByDepartment(Department department) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(FIND_BY_DEPARTMENT_SQL));
+
+            st.setInt(1, department.getId());
+            rs = st.executeQuery();
+
+            List<Seller> list = new ArrayList<>();
+            SellerRowMapper mapper = new SellerRowMapper(rs);
+
+            while (rs.next()) {
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Finds all sellers in the database.
+     * @return List of all sellers.
+     */
+    @Override
+    public List<Seller> findAll() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(FIND_ALL_SQL));
+
+            rs = st.executeQuery();
+
+            List<Seller> list = new ArrayList<>();
+            SellerRowMapper mapper = new SellerRowMapper(rs);
+
+            while (rs.next()) {
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Reads one page of sellers ordered by ID, starting after the given ID.
+     * Uses keyset pagination ({@code WHERE Id > ?}), so deep pages cost the same as the first one.
+     * @param afterId ID of the last seller of the previous page, or null for the first page.
+     * @param limit maximum number of sellers in the page, capped at {@value #MAX_PAGE_LIMIT}.
+     * @return the page, with a continuation token if more sellers follow.
+     */
+    @Override
+    public Page<Seller> findAll(Integer afterId, int limit) {
+        limit = pageLimit(limit);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(select(FIND_ALL_PAGE_SQL));
+
+            st.setInt(1, afterId == null ? Integer.MIN_VALUE : afterId);
+            st.setInt(2, limit + 1);
+            rs = st.executeQuery();
+
+            return readPage(rs, limit, false);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Reads one page of a department's sellers ordered by name (then ID), starting after the given position.
+     * Uses keyset pagination on {@code (Name, Id)}; an index on {@code seller(DepartmentId, Name, Id)} serves it directly.
+     * Sellers without a name come first, as MySQL sorts NULL before any value.
+     * @param department Department filter.
+     * @param afterName name of the last seller of the previous page, null if it had none.
+     * @param afterId ID of the last seller of the previous page; null, with a null name, for the first page.
+     * @param limit maximum number of sellers in the page, capped at {@value #MAX_PAGE_LIMIT}.
+     * @return the page, with a continuation token if more sellers follow.
+     */
+    @Override
+    public Page<Seller> findByDepartment(Department department, String afterName, Integer afterId, int limit) {
+        limit = pageLimit(limit);
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            if (afterName == null && afterId == null) {
+                st = conn.prepareStatement(select(FIND_BY_DEPARTMENT_FIRST_PAGE_SQL));
+                st.setInt(1, department.getId());
+                st.setInt(2, limit + 1);
+            } else if (afterName == null) {
+                st = conn.prepareStatement(select(FIND_BY_DEPARTMENT_AFTER_NULL_NAME_PAGE_SQL));
+                st.setInt(1, department.getId());
+                st.setInt(2, afterId);
+                st.setInt(3, limit + 1);
+            } else {
+                st = conn.prepareStatement(select(FIND_BY_DEPARTMENT_PAGE_SQL));
+                st.setInt(1, department.getId());
+                st.setString(2, afterName);
+                st.setString(3, afterName);
+                st.setInt(4, afterId == null ? Integer.MIN_VALUE : afterId);
+                st.setInt(5, limit + 1);
+            }
+            rs = st.executeQuery();
+
+            return readPage(rs, limit, true);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} sellers from a query that fetched {@code limit + 1} rows;
+     * the extra row only signals that another page exists.
+     */
+    private Page<Seller> readPage(ResultSet rs, int limit, boolean byName) throws SQLException {
+        List<Seller> list = new ArrayList<>(limit);
+        SellerRowMapper mapper = new SellerRowMapper(rs);
+        boolean more = false;
+
+        while (rs.next()) {
+            if (list.size() == limit) {
+                more = true;
+                break;
+            }
+            list.add(mapper.map(rs));
+        }
+
+        String token = null;
+        if (more) {
+            Seller last = list.get(list.size() - 1);
+            token = (byName ? new PageToken(last.getId(), last.getName()) : new PageToken(last.getId())).encode();
+        }
+        return new Page<>(list, token);
+    }
+
+    private int pageLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        return Math.min(limit, MAX_PAGE_LIMIT);
+    }
+
+    /**
+     * Streams all sellers ordered by ID without materializing the whole result.
+     * Rows are read with MySQL result streaming, so the stream holds a connection
+     * until it is closed and must be used in a try-with-resources block.
+     * @return lazily populated stream of sellers.
+     */
+    @Override
+    public Stream<Seller> streamAll() {
+        return stream(select(FIND_ALL_SQL));
+    }
+
+    /**
+     * Streams the sellers of a department ordered by name without materializing the whole result.
+     * The stream holds a connection until it is closed and must be used in a try-with-resources block.
+     * @param department Department filter.
+     * @return lazily populated stream of sellers.
+     */
+    @Override
+    public Stream<Seller> streamByDepartment(Department department) {
+        return stream(select(FIND_BY_DEPARTMENT_SQL), department.getId());
+    }
+
+    /**
+     * Passes every seller, ordered by ID, to the action while the rows are streamed from the database.
+     * @param action callback invoked once per seller.
+     */
+    @Override
+    public void forEach(Consumer<? super Seller> action) {
+        try (Stream<Seller> sellers = streamAll()) {
+            sellers.forEach(action);
+        }
+    }
+
+    /**
+     * Reads all sellers in parallel: the ID range is split into {@code partitions} equal ranges, each
+     * streamed on its own virtual thread and pooled connection. Each partition buffers up to
+     * {@code batchSize} rows ahead of the action and waits while its buffer is full.
+     * Partitions read outside the caller's transaction.
+     * @param partitions number of ranges read concurrently, at most the pool size.
+     * @param ordered whether the action receives the sellers in ID order; otherwise in arrival order.
+     * @param action callback invoked once per seller on the calling thread.
+     */
+    @Override
+    public void exportAll(int partitions, boolean ordered, Consumer<? super Seller> action) {
+        checkParallelism(partitions);
+        int[] range = idRange();
+        if (range == null) {
+            return;
+        }
+        long span = (long) range[1] - range[0] + 1;
+        List<Function<Consumer<Connection>, Stream<Seller>>> scans = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int from = (int) (range[0] + span * i / partitions);
+            int to = (int) (range[0] + span * (i + 1) / partitions - 1);
+            if (from <= to) {
+                scans.add(onQuery -> stream(onQuery, select(FIND_BY_ID_RANGE_SQL), from, to));
+            }
+        }
+        export(scans, partitions, ordered, action);
+    }
+
+    /**
+     * Reads all sellers in parallel, one partition per department with the query of
+     * {@link #streamByDepartment(Department)}, at most {@code parallelism} at a time.
+     * Buffering and transactions are as in {@link #exportAll(int, boolean, Consumer)}.
+     * @param parallelism number of departments read concurrently, at most the pool size.
+     * @param ordered whether the action receives the sellers by department ID, then name; otherwise in arrival order.
+     * @param action callback invoked once per seller on the calling thread.
+     */
+    @Override
+    public void exportByDepartment(int parallelism, boolean ordered, Consumer<? super Seller> action) {
+        checkParallelism(parallelism);
+        List<Function<Consumer<Connection>, Stream<Seller>>> scans = new ArrayList<>();
+        for (int departmentId : departmentIds()) {
+            scans.add(onQuery -> stream(onQuery, select(FIND_BY_DEPARTMENT_SQL), departmentId));
+        }
+        export(scans, parallelism, ordered, action);
+    }
+
+    private void checkParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+    }
+
+    /**
+     * @return the lowest and highest seller ID, or null if there is no seller.
+     */
+    private int[] idRange() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(ID_RANGE_SQL);
+
+            rs = st.executeQuery();
+
+            rs.next();
+            int min = rs.getInt(1);
+            if (rs.wasNull()) {
+                return null;
+            }
+            return new int[]{min, rs.getInt(2)};
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    private List<Integer> departmentIds() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(DEPARTMENT_IDS_SQL);
+
+            rs = st.executeQuery();
+
+            List<Integer> ids = new ArrayList<>();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Runs the scans on virtual threads, at most {@code parallelism} at a time, and hands their rows
+     * to the action on the calling thread. See {@link ParallelExport}.
+     */
+    private void export(List<Function<Consumer<Connection>, Stream<Seller>>> scans, int parallelism, boolean ordered,
+                        Consumer<? super Seller> action) {
+        if (!scans.isEmpty()) {
+            new ParallelExport(scans, parallelism, ordered, batchSize).run(action);
+        }
+    }
+
+    /**
+     * One parallel export. Scans are started in list order as slots free up.
+     * Unordered, all scans feed one queue. Ordered, each scan has its own queue, drained in list order,
+     * and a scan's slot is only freed once it was drained, so buffered rows stay bounded and the scan
+     * being drained is always running. The first failure, of a scan or of the action, stops the export:
+     * the connections of running scans are aborted, since closing a streaming result set would otherwise
+     * read all its remaining rows, then scans are interrupted and their queues emptied so none stays blocked.
+     * ({@link Statement#cancel()} would not do: Connector/J ignores it once the first rows arrived.)
+     */
+    private static final class ParallelExport {
+
+        private final List<Function<Consumer<Connection>, Stream<Seller>>> scans;
+        private final boolean ordered;
+        private final Semaphore slots;
+        private final List<BlockingQueue<Seller>> queues;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private volatile boolean abandoned;
+        /** Connections of the running scans, guarded by itself. */
+        private final Set<Connection> running = new HashSet<>();
+
+        ParallelExport(List<Function<Consumer<Connection>, Stream<Seller>>> scans, int parallelism, boolean ordered, int bufferSize) {
+            this.scans = scans;
+            this.ordered = ordered;
+            this.slots = new Semaphore(parallelism);
+            this.queues = new ArrayList<>(scans.size());
+            BlockingQueue<Seller> shared = ordered ? null : new LinkedBlockingQueue<>(bufferSize * parallelism);
+            for (int i = 0; i < scans.size(); i++) {
+                queues.add(ordered ? new LinkedBlockingQueue<>(bufferSize) : shared);
+            }
+        }
+
+        void run(Consumer<? super Seller> action) {
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            boolean completed = false;
+            try {
+                executor.submit(() -> {
+                    for (int i = 0; i < scans.size() && !abandoned; i++) {
+                        slots.acquire();
+                        int index = i;
+                        executor.submit(() -> scan(index));
+                    }
+                    return null;
+                });
+
+                int current = 0;
+                int finished = 0;
+                while (finished < scans.size()) {
+                    Seller obj = queues.get(current).take();
+                    if (obj != END_OF_PARTITION) {
+                        action.accept(obj);
+                        continue;
+                    }
+                    finished++;
+                    if (failure.get() != null) {
+                        throw failure.get();
+                    }
+                    if (ordered) {
+                        slots.release();
+                        current++;
+                    }
+                }
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DbException("Export interrupted");
+            } finally {
+                if (!completed) {
+                    abandoned = true;
+                    abortRunning();
+                    executor.shutdownNow();
+                    queues.forEach(BlockingQueue::clear);
+                }
+                executor.close();
+            }
+        }
+
+        /**
+         * Streams one scan into its queue, then marks its end. Unordered, the slot is freed
+         * as soon as the rows are read.
+         */
+        private void scan(int index) {
+            BlockingQueue<Seller> queue = queues.get(index);
+            List<Connection> connection = new ArrayList<>(1);
+            try {
+                try (Stream<Seller> sellers = scans.get(index).apply(conn -> register(connection, conn))) {
+                    Iterator<Seller> it = sellers.iterator();
+                    while (it.hasNext() && !abandoned) {
+                        queue.put(it.next());
+                    }
+                } catch (RuntimeException e) {
+                    if (!abandoned) {
+                        failure.compareAndSet(null, e); // Otherwise most likely caused by the abort
+                    }
+                } finally {
+                    unregister(connection);
+                }
+                if (!ordered) {
+                    slots.release();
+                }
+                if (!abandoned) {
+                    queue.put(END_OF_PARTITION);
+                }
+            } catch (InterruptedException e) {
+                // The export was abandoned
+            }
+        }
+
+        private void register(List<Connection> scanConnection, Connection conn) {
+            synchronized (running) {
+                scanConnection.add(conn);
+                running.add(conn);
+            }
+        }
+
+        private void unregister(List<Connection> scanConnection) {
+            synchronized (running) {
+                running.removeAll(scanConnection);
+            }
+        }
+
+        /**
+         * Aborts the connections of the running scans, which ends their queries without reading the
+         * rest of the rows; the pool discards them. A connection already given back to the pool is
+         * no longer usable through the scan's handle, so no other borrower is affected.
+         */
+        private void abortRunning() {
+            synchronized (running) {
+                for (Connection conn : running) {
+                    try {
+                        conn.abort(Runnable::run);
+                    } catch (SQLException e) {
+                        // The scan ended meanwhile; closing its stream is then cheap anyway
+                    }
+                }
+                running.clear();
+            }
+        }
+    }
+
+    /**
+     * Opens a streaming query and wraps its result set in a sequential stream
+     * whose close handler releases the result set, statement and connection.
+     */
+    private Stream<Seller> stream(String sql, int... params) {
+        return stream(conn -> { }, sql, params);
+    }
+
+    /**
+     * Opens a streaming query as {@link #stream(String, int...)} does, first handing its connection
+     * to {@code onQuery} so the query can be aborted from another thread while the stream is open.
+     */
+    private Stream<Seller> stream(Consumer<Connection> onQuery, String sql, int... params) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = connectionProvider.getReadConnection();
+            st = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            st.setFetchSize(Integer.MIN_VALUE); // Row-by-row streaming in Connector/J
+
+            for (int i = 0; i < params.length; i++) {
+                st.setInt(i + 1, params[i]);
+            }
+            onQuery.accept(conn);
+            rs = st.executeQuery();
+        } catch (SQLException e) {
+            DB.close(rs, st, conn);
+            throw new DbException(e.getMessage());
+        }
+
+        Connection openConn = conn;
+        PreparedStatement openSt = st;
+        ResultSet openRs = rs;
+        SellerRowMapper mapper;
+        try {
+            mapper = new SellerRowMapper(rs);
+        } catch (SQLException e) {
+            DB.close(rs, st, conn);
+            throw new DbException(e.getMessage());
+        }
+
+        Spliterator<Seller> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Seller> action) {
+                try {
+                    if (!openRs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(openRs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DbException(e.getMessage());
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            DB.close(openRs, openSt, openConn);
+        });
     }
 }
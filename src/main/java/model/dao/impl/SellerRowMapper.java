@@ -0,0 +1,94 @@
+package model.dao.impl;
+
+import model.dao.RowMapper;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps rows of the seller ⨝ department queries to Seller objects.
+ * Column indexes are resolved once from the result set metadata, so each row is read
+ * by position, and Department objects are shared between rows of the same department.
+ * Versions are read when the select list includes them, and mapped objects track their changes from there.
+ * One mapper serves one query; it is not thread-safe.
+ */
+final class SellerRowMapper implements RowMapper<Seller> {
+
+    /** Select list of the seller queries, matching the labels resolved below. */
+    static final String COLUMNS = "seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, " +
+            "seller.DepartmentId, department.Name AS DepName";
+
+    /** Select list of the seller queries with optimistic locking enabled. */
+    static final String VERSIONED_COLUMNS = COLUMNS + ", seller.Version, department.Version AS DepVersion";
+
+    private final int idIndex;
+    private final int nameIndex;
+    private final int emailIndex;
+    private final int birthDateIndex;
+    private final int baseSalaryIndex;
+    private final int departmentIdIndex;
+    private final int depNameIndex;
+    private final int versionIndex;
+    private final int depVersionIndex;
+
+    private final Map<Integer, Department> departments = new HashMap<>();
+    private int lastDepartmentId;
+    private Department lastDepartment;
+
+    SellerRowMapper(ResultSet rs) throws SQLException {
+        idIndex = rs.findColumn("Id");
+        nameIndex = rs.findColumn("Name");
+        emailIndex = rs.findColumn("Email");
+        birthDateIndex = rs.findColumn("BirthDate");
+        baseSalaryIndex = rs.findColumn("BaseSalary");
+        departmentIdIndex = rs.findColumn("DepartmentId");
+        depNameIndex = rs.findColumn("DepName");
+        versionIndex = DepartmentRowMapper.indexOf(rs, "Version");
+        depVersionIndex = DepartmentRowMapper.indexOf(rs, "DepVersion");
+    }
+
+    /**
+     * Maps the current row. The result set must have the same columns as the one the mapper was built from.
+     */
+    @Override
+    public Seller map(ResultSet rs) throws SQLException {
+        Seller obj = new Seller();
+        obj.setId(rs.getInt(idIndex));
+        obj.setName(rs.getString(nameIndex));
+        obj.setEmail(rs.getString(emailIndex));
+        obj.setBirthDate(rs.getDate(birthDateIndex)); // java.sql.Date is already a java.util.Date
+        obj.setBaseSalary(rs.getDouble(baseSalaryIndex));
+        obj.setDepartment(department(rs, rs.getInt(departmentIdIndex)));
+        if (versionIndex > 0) {
+            obj.setVersion(rs.getInt(versionIndex));
+        }
+        obj.markClean();
+        return obj;
+    }
+
+    /**
+     * Returns the Department of the row, reusing the previous row's one first since
+     * rows of the same department tend to be adjacent.
+     */
+    private Department department(ResultSet rs, int depId) throws SQLException {
+        if (lastDepartment != null && lastDepartmentId == depId) {
+            return lastDepartment;
+        }
+        Department dep = departments.get(depId);
+        if (dep == null) {
+            dep = new Department(depId, rs.getString(depNameIndex));
+            if (depVersionIndex > 0) {
+                dep.setVersion(rs.getInt(depVersionIndex));
+            }
+            dep.markClean();
+            departments.put(depId, dep);
+        }
+        lastDepartmentId = depId;
+        lastDepartment = dep;
+        return dep;
+    }
+}
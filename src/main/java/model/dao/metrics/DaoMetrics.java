@@ -0,0 +1,209 @@
+package model.dao.metrics;
+
+import db.LatencyHistogram;
+import model.dao.Page;
+import model.dao.UpsertResult;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records call counts, latency histograms, errors and row counts of DAO methods.
+ * DAOs are instrumented by wrapping them with {@link #wrap(Class, Object)}; calls slower than
+ * the slow query threshold are logged as warnings to the {@code model.dao.slowquery} logger.
+ * Returned streams are timed until they are opened, and their rows are counted as they are consumed.
+ */
+public class DaoMetrics implements DaoMetricsMXBean {
+
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("model.dao.slowquery");
+    private static final int MAX_ARG_LENGTH = 200;
+
+    private final ConcurrentHashMap<Method, Stats> stats = new ConcurrentHashMap<>();
+    private volatile long slowQueryMillis;
+
+    /**
+     * @param slowQueryMillis calls taking at least this long are logged, 0 to disable the slow query log.
+     */
+    public DaoMetrics(long slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    /**
+     * Returns a DAO that records the metrics of every call before delegating to the target.
+     * @param type DAO interface.
+     * @param target DAO to instrument.
+     */
+    public <T> T wrap(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                new Handler(target)
+        ));
+    }
+
+    @Override
+    public List<MethodMetrics> getMethods() {
+        List<MethodMetrics> list = new ArrayList<>(stats.size());
+        for (Stats s : stats.values()) {
+            list.add(s.snapshot());
+        }
+        list.sort(Comparator.comparingLong(MethodMetrics::getP99Micros).reversed());
+        return list;
+    }
+
+    @Override
+    public long getSlowQueryMillis() {
+        return slowQueryMillis;
+    }
+
+    @Override
+    public void setSlowQueryMillis(long slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    @Override
+    public void reset() {
+        for (Stats s : stats.values()) {
+            s.latency.reset();
+            s.errors.reset();
+            s.rows.reset();
+        }
+    }
+
+    private Stats statsFor(Method method) {
+        Stats s = stats.get(method);
+        return s != null ? s : stats.computeIfAbsent(method, Stats::new);
+    }
+
+    private void logIfSlow(Stats s, long elapsedNanos, long rows, Object[] args) {
+        long threshold = slowQueryMillis;
+        if (threshold > 0 && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            SLOW_QUERY_LOG.warning(() -> "Slow DAO call " + s.name + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, rows=" + rows
+                    + ", args=" + describe(args));
+        }
+    }
+
+    /**
+     * Counts the rows of a DAO result: the size of lists and pages, 1 for an entity, or the
+     * rows written by upserts and count-returning writes.
+     */
+    private static long rowCount(Object result) {
+        if (result == null || result instanceof Boolean) {
+            return 0;
+        }
+        if (result instanceof Collection<?> c) {
+            return c.size();
+        }
+        if (result instanceof Page<?> p) {
+            return p.getItems().size();
+        }
+        if (result instanceof UpsertResult u) {
+            return u.getInsertedCount() + u.getUpdatedCount();
+        }
+        if (result instanceof Number n) {
+            return n.longValue();
+        }
+        return 1;
+    }
+
+    private static String describe(Object[] args) {
+        if (args == null) {
+            return "[]";
+        }
+        String text = Arrays.stream(args)
+                .map(arg -> arg instanceof Collection<?> c ? "<" + c.size() + " items>" : String.valueOf(arg))
+                .collect(Collectors.joining(", ", "[", "]"));
+        return text.length() > MAX_ARG_LENGTH ? text.substring(0, MAX_ARG_LENGTH) + "...]" : text;
+    }
+
+    private static String nameOf(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(", ")"));
+    }
+
+    private static final class Stats {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+
+        Stats(Method method) {
+            this.name = nameOf(method);
+        }
+
+        MethodMetrics snapshot() {
+            return new MethodMetrics(
+                    name,
+                    latency.getCount(),
+                    errors.sum(),
+                    rows.sum(),
+                    latency.getMeanNanos() / 1000.0,
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99.9)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getMaxNanos())
+            );
+        }
+    }
+
+    private final class Handler implements InvocationHandler {
+        private final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return method.invoke(target, args);
+                }
+            }
+
+            Stats s = statsFor(method);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                long elapsed = System.nanoTime() - start;
+                s.latency.record(elapsed);
+                s.errors.increment();
+                logIfSlow(s, elapsed, 0, args);
+                throw e.getCause();
+            }
+            long elapsed = System.nanoTime() - start;
+            s.latency.record(elapsed);
+
+            if (result instanceof Stream<?> stream) {
+                logIfSlow(s, elapsed, 0, args);
+                return stream.peek(row -> s.rows.increment());
+            }
+            long rows = rowCount(result);
+            s.rows.add(rows);
+            logIfSlow(s, elapsed, rows, args);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package model.dao.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link DaoMetrics}.
+ */
+public interface DaoMetricsMXBean {
+
+    /**
+     * @return metrics of every DAO method called so far, slowest p99 first.
+     */
+    List<MethodMetrics> getMethods();
+
+    long getSlowQueryMillis();
+
+    void setSlowQueryMillis(long slowQueryMillis);
+
+    void reset();
+}
@@ -0,0 +1,90 @@
+package model.dao.metrics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Snapshot of the metrics of one DAO method, as shown over JMX.
+ */
+public class MethodMetrics {
+
+    private final String method;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorParameters({"method", "calls", "errors", "rows", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public MethodMetrics(String method, long calls, long errors, long rows, double meanMicros,
+                         long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.method = method;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * @return DAO interface and method signature, e.g. {@code SellerDao.findAll(Integer,int)}.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return rows returned by finders, or rows affected by count-returning writes.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodMetrics{" +
+                "method='" + method + '\'' +
+                ", calls=" + calls +
+                ", errors=" + errors +
+                ", rows=" + rows +
+                ", meanMicros=" + meanMicros +
+                ", p50Micros=" + p50Micros +
+                ", p99Micros=" + p99Micros +
+                ", p999Micros=" + p999Micros +
+                ", maxMicros=" + maxMicros +
+                '}';
+    }
+}
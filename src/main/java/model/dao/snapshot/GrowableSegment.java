@@ -0,0 +1,70 @@
+package model.dao.snapshot;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Off-heap buffer that values are appended to while a snapshot is built, doubling in size as needed.
+ * Superseded segments stay allocated until the build arena is closed, so the final contents are
+ * copied into the snapshot's own arena with {@link #copyTo(Arena)}.
+ */
+final class GrowableSegment {
+
+    /** Alignment of every snapshot segment, enough for longs and doubles. */
+    static final long ALIGNMENT = 8;
+
+    private final Arena arena;
+    private MemorySegment segment;
+    private long used;
+
+    GrowableSegment(Arena arena, long initialBytes) {
+        this.arena = arena;
+        this.segment = arena.allocate(Math.max(initialBytes, ALIGNMENT), ALIGNMENT);
+    }
+
+    void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        segment.set(ValueLayout.JAVA_INT, used, value);
+        used += Integer.BYTES;
+    }
+
+    void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        segment.set(ValueLayout.JAVA_LONG, used, value);
+        used += Long.BYTES;
+    }
+
+    void putDouble(double value) {
+        ensureCapacity(Double.BYTES);
+        segment.set(ValueLayout.JAVA_DOUBLE, used, value);
+        used += Double.BYTES;
+    }
+
+    void putBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, used, bytes.length);
+        used += bytes.length;
+    }
+
+    long size() {
+        return used;
+    }
+
+    /**
+     * @return a segment of exactly the appended bytes, allocated in the given arena.
+     */
+    MemorySegment copyTo(Arena target) {
+        MemorySegment copy = target.allocate(Math.max(used, ALIGNMENT), ALIGNMENT);
+        MemorySegment.copy(segment, 0, copy, 0, used);
+        return copy.asSlice(0, used);
+    }
+
+    private void ensureCapacity(long bytes) {
+        if (used + bytes > segment.byteSize()) {
+            MemorySegment grown = arena.allocate(Math.max(segment.byteSize() * 2, used + bytes), ALIGNMENT);
+            MemorySegment.copy(segment, 0, grown, 0, used);
+            segment = grown;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package model.dao.snapshot;
+
+import db.ConnectionProvider;
+import model.dao.DepartmentCounts;
+import model.dao.PayrollDao;
+import model.dao.SalaryHistogram;
+import model.dao.SalaryStats;
+import model.dao.SellerQuery;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only columnar copy of the sellers, held off-heap for analytics scans.
+ * Each seller is a row index into primitive columns (ID, department ID, base salary, birth date as
+ * an epoch day, name and email codes), sorted by ID; names and emails are UTF-8 strings in
+ * dictionaries, equal names sharing one entry. A few hundred thousand sellers take a few megabytes
+ * outside the Java heap instead of an object graph on it. Every department is included, with its name.
+ * <p>
+ * Scans and aggregates loop over the columns without allocating per row. The snapshot is safe to
+ * read from several threads; {@link #close()} frees its memory, after which it must not be used.
+ * {@link SellerSnapshotStore} keeps a copy on disk and refreshes it from the change feed.
+ */
+public class SellerSnapshot implements PayrollDao, AutoCloseable {
+
+    /** Epoch day stored for a seller without a birth date. */
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    private final Arena arena;
+    private final SnapshotWatermark watermark;
+    private final int size;
+    private final MemorySegment ids;
+    private final MemorySegment departmentIds;
+    private final MemorySegment salaries;
+    private final MemorySegment birthDays;
+    private final MemorySegment nameCodes;
+    private final MemorySegment emailCodes;
+    private final MemorySegment departments;
+    private final MemorySegment departmentNameCodes;
+    private final StringDictionary names;
+    private final StringDictionary emails;
+
+    /** Sorted department IDs the sellers are grouped by, computed on first use. */
+    private volatile int[] groupKeys;
+
+    SellerSnapshot(Arena arena, SnapshotWatermark watermark, MemorySegment ids, MemorySegment departmentIds, MemorySegment salaries,
+                   MemorySegment birthDays, MemorySegment nameCodes, MemorySegment emailCodes,
+                   MemorySegment departments, MemorySegment departmentNameCodes,
+                   StringDictionary names, StringDictionary emails) {
+        this.arena = arena;
+        this.watermark = watermark;
+        this.size = (int) (ids.byteSize() / Integer.BYTES);
+        this.ids = ids;
+        this.departmentIds = departmentIds;
+        this.salaries = salaries;
+        this.birthDays = birthDays;
+        this.nameCodes = nameCodes;
+        this.emailCodes = emailCodes;
+        this.departments = departments;
+        this.departmentNameCodes = departmentNameCodes;
+        this.names = names;
+        this.emails = emails;
+    }
+
+    /**
+     * Reads every department and then every seller in one streaming query.
+     * The snapshot's watermark is unknown, so a store can only replace it with a full load.
+     * @param connectionProvider source of the connection; the read connection is used.
+     * @return a new snapshot, to be closed when no longer needed.
+     */
+    public static SellerSnapshot load(ConnectionProvider connectionProvider) {
+        return SellerSnapshotBuilder.load(connectionProvider, SnapshotWatermark.unknown());
+    }
+
+    /**
+     * @return the point of the change feed the snapshot reflects.
+     */
+    public SnapshotWatermark getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return number of sellers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the row of the seller with the given ID, or a negative value if it is not in the snapshot.
+     */
+    public int rowOf(int id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = ids.getAtIndex(INT, mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public int getId(int row) {
+        return ids.getAtIndex(INT, row);
+    }
+
+    public int getDepartmentId(int row) {
+        return departmentIds.getAtIndex(INT, row);
+    }
+
+    public double getBaseSalary(int row) {
+        return salaries.getAtIndex(DOUBLE, row);
+    }
+
+    public LocalDate getBirthDate(int row) {
+        int day = birthDays.getAtIndex(INT, row);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * @return birth date as an epoch day, or {@link #NO_DATE}.
+     */
+    int getBirthEpochDay(int row) {
+        return birthDays.getAtIndex(INT, row);
+    }
+
+    public String getName(int row) {
+        return names.get(nameCodes.getAtIndex(INT, row));
+    }
+
+    public String getEmail(int row) {
+        return emails.get(emailCodes.getAtIndex(INT, row));
+    }
+
+    public String getDepartmentName(int row) {
+        int index = departmentIndex(getDepartmentId(row));
+        return index < 0 ? null : names.get(departmentNameCodes.getAtIndex(INT, index));
+    }
+
+    /**
+     * @return the seller of a row as a new entity, as a DAO would load it.
+     */
+    public Seller getSeller(int row) {
+        int departmentId = getDepartmentId(row);
+        int index = departmentIndex(departmentId);
+        Department dep = new Department(departmentId,
+                index < 0 ? null : names.get(departmentNameCodes.getAtIndex(INT, index)));
+        dep.markClean();
+        return toSeller(row, dep);
+    }
+
+    /**
+     * Creates entities for every seller, in ID order; sellers of one department share its instance.
+     * This allocates the object graph the snapshot otherwise avoids, e.g. to warm a cache at startup.
+     */
+    public List<Seller> getSellers() {
+        Map<Integer, Department> deps = new HashMap<>();
+        for (Department dep : getDepartments()) {
+            deps.put(dep.getId(), dep);
+        }
+        List<Seller> list = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            Department dep = deps.computeIfAbsent(getDepartmentId(row), id -> new Department(id, null));
+            list.add(toSeller(row, dep));
+        }
+        return list;
+    }
+
+    /**
+     * @return every department as new entities, ordered by ID.
+     */
+    public List<Department> getDepartments() {
+        int count = departmentCount();
+        List<Department> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Department dep = new Department(departments.getAtIndex(INT, i),
+                    names.get(departmentNameCodes.getAtIndex(INT, i)));
+            dep.markClean();
+            list.add(dep);
+        }
+        return list;
+    }
+
+    /**
+     * @return the sum of all base salaries.
+     */
+    public double sumBaseSalary() {
+        double sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += salaries.getAtIndex(DOUBLE, row);
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the sellers matching the query's criteria; its order and limit are ignored.
+     * Name prefixes are compared exactly rather than with the column's collation.
+     */
+    public long count(SellerQuery query) {
+        Filter filter = new Filter(query);
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (filter.matches(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums the base salaries of the sellers matching the query's criteria; its order and limit are ignored.
+     */
+    public double sumBaseSalary(SellerQuery query) {
+        Filter filter = new Filter(query);
+        double sum = 0;
+        for (int row = 0; row < size; row++) {
+            if (filter.matches(row)) {
+                sum += salaries.getAtIndex(DOUBLE, row);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Passes the rows of the sellers matching the query to the action, in ID order and up to its limit.
+     * @return number of rows passed.
+     * @throws IllegalArgumentException if the query sorts by a field, which the snapshot does not support.
+     */
+    public int forEach(SellerQuery query, IntConsumer action) {
+        if (query.getOrderBy() != null || query.isDescending()) {
+            throw new IllegalArgumentException("Snapshot scans are in ID order: " + query);
+        }
+        Filter filter = new Filter(query);
+        int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+        int passed = 0;
+        for (int row = 0; row < size && passed < limit; row++) {
+            if (filter.matches(row)) {
+                action.accept(row);
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Departments without sellers are left out, as the database's GROUP BY does.
+     */
+    @Override
+    public DepartmentCounts countByDepartment() {
+        int[] departmentIdArray = groupKeys().clone();
+        long[] counts = new long[departmentIdArray.length];
+        for (int row = 0; row < size; row++) {
+            counts[Arrays.binarySearch(departmentIdArray, departmentIds.getAtIndex(INT, row))]++;
+        }
+        int n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                departmentIdArray[n] = departmentIdArray[i];
+                counts[n++] = counts[i];
+            }
+        }
+        return new DepartmentCounts(Arrays.copyOf(departmentIdArray, n), Arrays.copyOf(counts, n));
+    }
+
+    @Override
+    public SalaryStats salaryStatsByDepartment() {
+        int[] departmentIdArray = groupKeys().clone();
+        long[] counts = new long[departmentIdArray.length];
+        double[] sums = new double[departmentIdArray.length];
+        double[] mins = new double[departmentIdArray.length];
+        double[] maxs = new double[departmentIdArray.length];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        for (int row = 0; row < size; row++) {
+            int i = Arrays.binarySearch(departmentIdArray, departmentIds.getAtIndex(INT, row));
+            double salary = salaries.getAtIndex(DOUBLE, row);
+            counts[i]++;
+            sums[i] += salary;
+            mins[i] = Math.min(mins[i], salary);
+            maxs[i] = Math.max(maxs[i], salary);
+        }
+        int n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                departmentIdArray[n] = departmentIdArray[i];
+                counts[n] = counts[i];
+                sums[n] = sums[i];
+                mins[n] = mins[i];
+                maxs[n++] = maxs[i];
+            }
+        }
+        return new SalaryStats(Arrays.copyOf(departmentIdArray, n), Arrays.copyOf(counts, n),
+                Arrays.copyOf(sums, n), Arrays.copyOf(mins, n), Arrays.copyOf(maxs, n));
+    }
+
+    @Override
+    public SalaryHistogram headcountHistogram(double bandWidth) {
+        if (!(bandWidth > 0)) {
+            throw new IllegalArgumentException("Band width must be positive: " + bandWidth);
+        }
+        // Sorting the band of every row keeps memory at one entry per seller, whatever the band span
+        long[] bands = new long[size];
+        for (int row = 0; row < size; row++) {
+            bands[row] = (long) Math.floor(salaries.getAtIndex(DOUBLE, row) / bandWidth);
+        }
+        Arrays.sort(bands);
+        long[] counts = new long[size];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (n == 0 || bands[n - 1] != bands[row]) {
+                bands[n++] = bands[row];
+            }
+            counts[n - 1]++;
+        }
+        return new SalaryHistogram(bandWidth, Arrays.copyOf(bands, n), Arrays.copyOf(counts, n));
+    }
+
+    /**
+     * Frees the snapshot's memory.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * @return the highest seller ID, or 0 when there are no sellers.
+     */
+    int maxId() {
+        return size == 0 ? 0 : ids.getAtIndex(INT, size - 1);
+    }
+
+    int departmentCount() {
+        return (int) (departments.byteSize() / Integer.BYTES);
+    }
+
+    int getDepartmentIdAt(int index) {
+        return departments.getAtIndex(INT, index);
+    }
+
+    String getDepartmentNameAt(int index) {
+        return names.get(departmentNameCodes.getAtIndex(INT, index));
+    }
+
+    /**
+     * @return the column and dictionary segments in the order {@link SnapshotFile} stores them.
+     */
+    MemorySegment[] segments() {
+        return new MemorySegment[] {
+                ids, departmentIds, salaries, birthDays, nameCodes, emailCodes,
+                departments, departmentNameCodes,
+                names.getOffsets(), names.getBytes(), emails.getOffsets(), emails.getBytes()
+        };
+    }
+
+    /**
+     * @return a date as an epoch day, the unit of the birth date column.
+     */
+    static int epochDay(Date date) {
+        java.sql.Date sqlDate = date instanceof java.sql.Date d ? d : new java.sql.Date(date.getTime());
+        return (int) sqlDate.toLocalDate().toEpochDay();
+    }
+
+    private Seller toSeller(int row, Department dep) {
+        int day = birthDays.getAtIndex(INT, row);
+        Seller obj = new Seller(getId(row), getName(row), getEmail(row),
+                day == NO_DATE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(day)),
+                getBaseSalary(row), dep);
+        obj.markClean();
+        return obj;
+    }
+
+    /**
+     * @return the known department IDs plus any other department ID a seller refers to, sorted,
+     * so every seller falls in a group as it does in the database's GROUP BY DepartmentId.
+     */
+    private int[] groupKeys() {
+        int[] keys = groupKeys;
+        if (keys == null) {
+            keys = departments.toArray(INT);
+            Set<Integer> extra = new TreeSet<>();
+            for (int row = 0; row < size; row++) {
+                int departmentId = departmentIds.getAtIndex(INT, row);
+                if (Arrays.binarySearch(keys, departmentId) < 0) {
+                    extra.add(departmentId); // A department deleted since, or 0 for a seller without one
+                }
+            }
+            if (!extra.isEmpty()) {
+                int known = keys.length;
+                keys = Arrays.copyOf(keys, known + extra.size());
+                for (int departmentId : extra) {
+                    keys[known++] = departmentId;
+                }
+                Arrays.sort(keys);
+            }
+            groupKeys = keys;
+        }
+        return keys;
+    }
+
+    private int departmentIndex(int departmentId) {
+        int low = 0;
+        int high = departmentCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = departments.getAtIndex(INT, mid);
+            if (midId < departmentId) {
+                low = mid + 1;
+            } else if (midId > departmentId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The criteria of a SellerQuery turned into bounds on the primitive columns,
+     * open bounds becoming extreme values as in the SQL the DAO generates.
+     */
+    private final class Filter {
+
+        private final double minSalary;
+        private final double maxSalary;
+        private final boolean byDepartment;
+        private final int departmentId;
+        private final boolean byBirthDate;
+        private final int bornFrom;
+        private final int bornTo;
+        private final boolean[] nameMatches;
+
+        Filter(SellerQuery query) {
+            minSalary = query.getMinSalary() == null ? Double.NEGATIVE_INFINITY : query.getMinSalary();
+            maxSalary = query.getMaxSalary() == null ? Double.POSITIVE_INFINITY : query.getMaxSalary();
+            byDepartment = query.getDepartmentId() != null;
+            departmentId = byDepartment ? query.getDepartmentId() : 0;
+            byBirthDate = query.hasBirthDateRange();
+            bornFrom = query.getBornFrom() == null ? NO_DATE + 1 : epochDay(query.getBornFrom());
+            bornTo = query.getBornTo() == null ? Integer.MAX_VALUE : epochDay(query.getBornTo());
+            nameMatches = query.getNamePrefix() == null ? null : names.startingWith(query.getNamePrefix());
+        }
+
+        boolean matches(int row) {
+            double salary = salaries.getAtIndex(DOUBLE, row);
+            if (salary < minSalary || salary > maxSalary) {
+                return false;
+            }
+            if (byDepartment && departmentIds.getAtIndex(INT, row) != departmentId) {
+                return false;
+            }
+            if (byBirthDate) {
+                int day = birthDays.getAtIndex(INT, row);
+                if (day < bornFrom || day > bornTo) {
+                    return false;
+                }
+            }
+            if (nameMatches != null) {
+                int code = nameCodes.getAtIndex(INT, row);
+                return code != StringDictionary.NULL && nameMatches[code];
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package model.dao.snapshot;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+
+import java.lang.foreign.Arena;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends departments and sellers, each in ascending ID order, to off-heap columns.
+ * Columns grow in a confined build arena and are copied at their final size into the snapshot's
+ * shared arena, so no Seller objects are created and the build leaves no oversized segments behind.
+ * A builder must be closed, which frees the build arena.
+ */
+final class SellerSnapshotBuilder implements AutoCloseable {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM seller";
+
+    private static final String DEPARTMENTS_SQL = "SELECT Id, Name FROM department ORDER BY Id";
+
+    private static final String SNAPSHOT_SQL = """
+            SELECT Id, DepartmentId, BaseSalary, BirthDate, Name, Email
+            FROM seller
+            ORDER BY Id
+            """;
+
+    private final Arena buildArena = Arena.ofConfined();
+    private final GrowableSegment ids;
+    private final GrowableSegment departmentIds;
+    private final GrowableSegment salaries;
+    private final GrowableSegment birthDays;
+    private final GrowableSegment nameCodes;
+    private final GrowableSegment emailCodes;
+    private final GrowableSegment departments;
+    private final GrowableSegment departmentNameCodes;
+    private final DictionaryBuilder names;
+    private final DictionaryBuilder emails;
+
+    /**
+     * @param expectedRows number of sellers to size the columns for; more are accepted.
+     */
+    SellerSnapshotBuilder(int expectedRows) {
+        ids = new GrowableSegment(buildArena, (long) expectedRows * Integer.BYTES);
+        departmentIds = new GrowableSegment(buildArena, (long) expectedRows * Integer.BYTES);
+        salaries = new GrowableSegment(buildArena, (long) expectedRows * Double.BYTES);
+        birthDays = new GrowableSegment(buildArena, (long) expectedRows * Integer.BYTES);
+        nameCodes = new GrowableSegment(buildArena, (long) expectedRows * Integer.BYTES);
+        emailCodes = new GrowableSegment(buildArena, (long) expectedRows * Integer.BYTES);
+        departments = new GrowableSegment(buildArena, 64 * Integer.BYTES);
+        departmentNameCodes = new GrowableSegment(buildArena, 64 * Integer.BYTES);
+        names = new DictionaryBuilder(buildArena, expectedRows, true);
+        emails = new DictionaryBuilder(buildArena, expectedRows, false);
+    }
+
+    /**
+     * Reads every department and seller, departments first, on one read connection and from one
+     * consistent snapshot, so every seller's department is among those read. Joins the connection's
+     * transaction if it already belongs to one.
+     */
+    static SellerSnapshot load(ConnectionProvider connectionProvider, SnapshotWatermark watermark) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        boolean ownTransaction = false;
+        try {
+            conn = connectionProvider.getReadConnection();
+            ownTransaction = DB.beginSnapshotIfAutoCommit(conn);
+            st = conn.prepareStatement(COUNT_SQL);
+            rs = st.executeQuery();
+            rs.next();
+            int expectedRows = rs.getInt(1);
+            DB.closeResultSet(rs);
+            DB.closeStatement(st);
+
+            try (SellerSnapshotBuilder builder = new SellerSnapshotBuilder(expectedRows)) {
+                st = conn.prepareStatement(DEPARTMENTS_SQL);
+                rs = st.executeQuery();
+                while (rs.next()) {
+                    builder.addDepartment(rs.getInt(1), rs.getString(2));
+                }
+                DB.closeResultSet(rs);
+                DB.closeStatement(st);
+
+                st = conn.prepareStatement(SNAPSHOT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                st.setFetchSize(Integer.MIN_VALUE); // Row-by-row streaming in Connector/J
+                rs = st.executeQuery();
+                while (rs.next()) {
+                    Date birthDate = rs.getDate(4);
+                    builder.addSeller(
+                            rs.getInt(1),
+                            rs.getInt(2),
+                            rs.getDouble(3),
+                            birthDate == null ? SellerSnapshot.NO_DATE : (int) birthDate.toLocalDate().toEpochDay(),
+                            rs.getString(5),
+                            rs.getString(6)
+                    );
+                }
+                if (ownTransaction) {
+                    conn.commit();
+                }
+                return builder.build(watermark);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    void addDepartment(int id, String name) {
+        departments.putInt(id);
+        departmentNameCodes.putInt(names.add(name));
+    }
+
+    /**
+     * @param birthDay birth date as an epoch day, or {@link SellerSnapshot#NO_DATE}.
+     */
+    void addSeller(int id, int departmentId, double baseSalary, int birthDay, String name, String email) {
+        ids.putInt(id);
+        departmentIds.putInt(departmentId);
+        salaries.putDouble(baseSalary);
+        birthDays.putInt(birthDay);
+        nameCodes.putInt(names.add(name));
+        emailCodes.putInt(emails.add(email));
+    }
+
+    /**
+     * Copies the columns into a new shared arena owned by the returned snapshot.
+     */
+    SellerSnapshot build(SnapshotWatermark watermark) {
+        Arena arena = Arena.ofShared();
+        try {
+            return new SellerSnapshot(
+                    arena,
+                    watermark,
+                    ids.copyTo(arena),
+                    departmentIds.copyTo(arena),
+                    salaries.copyTo(arena),
+                    birthDays.copyTo(arena),
+                    nameCodes.copyTo(arena),
+                    emailCodes.copyTo(arena),
+                    departments.copyTo(arena),
+                    departmentNameCodes.copyTo(arena),
+                    names.copyTo(arena),
+                    emails.copyTo(arena)
+            );
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        buildArena.close();
+    }
+
+    /**
+     * Appends strings to a dictionary under construction, optionally giving equal strings one code.
+     */
+    private static final class DictionaryBuilder {
+
+        private final GrowableSegment offsets;
+        private final GrowableSegment bytes;
+        private final Map<String, Integer> codes;
+        private int size;
+
+        DictionaryBuilder(Arena arena, int expectedSize, boolean deduplicate) {
+            this.offsets = new GrowableSegment(arena, (long) (expectedSize + 1) * Long.BYTES);
+            this.bytes = new GrowableSegment(arena, (long) expectedSize * 16);
+            this.codes = deduplicate ? new HashMap<>() : null;
+            offsets.putLong(0);
+        }
+
+        int add(String value) {
+            if (value == null) {
+                return StringDictionary.NULL;
+            }
+            if (codes != null) {
+                Integer code = codes.get(value);
+                if (code != null) {
+                    return code;
+                }
+                codes.put(value, size);
+            }
+            bytes.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            offsets.putLong(bytes.size());
+            return size++;
+        }
+
+        StringDictionary copyTo(Arena arena) {
+            return new StringDictionary(offsets.copyTo(arena), bytes.copyTo(arena));
+        }
+    }
+}
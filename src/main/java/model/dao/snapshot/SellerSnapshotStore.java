@@ -0,0 +1,306 @@
+package model.dao.snapshot;
+
+import db.DB;
+import db.DbException;
+import db.TransactionManager;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.dao.changes.ChangeEvent;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a SellerSnapshot in a local file so a restarted process starts from it instead of reading
+ * both tables. The file is memory-mapped, checked against the database's watermark and brought up to
+ * date by re-reading only the sellers and departments the change outbox reports as written since
+ * (see {@code db/change_feed.sql}, which this requires). Each new snapshot is saved atomically.
+ * <p>
+ * A change written by a transaction still open when a snapshot was loaded gets a lower sequence
+ * number than the watermark once it commits. Refreshes therefore also re-read every change made
+ * within {@code refreshWindowMillis} before the watermark, which must exceed the longest transaction
+ * writing sellers or departments. Falls back to a full load when the file is missing or invalid,
+ * when outbox rows it needs were purged, or when most sellers changed.
+ * <p>
+ * Each load or refresh reads the outbox and both tables in one snapshot transaction, so the
+ * watermark, the sellers and their departments are consistent with each other.
+ */
+public class SellerSnapshotStore {
+
+    private static final Logger LOG = Logger.getLogger("model.dao.snapshot");
+
+    private static final String STATE_SQL = """
+            SELECT (SELECT COALESCE(MAX(Seq), 0) FROM change_outbox),
+                   (SELECT COALESCE(MIN(Seq), 0) FROM change_outbox),
+                   (SELECT COUNT(*) FROM seller),
+                   (SELECT COALESCE(MAX(Id), 0) FROM seller),
+                   CURRENT_TIMESTAMP(6)
+            """;
+
+    private static final String WINDOW_START_SQL = "SELECT MIN(Seq) FROM change_outbox WHERE ChangedAt >= ?";
+
+    private static final String CHANGES_SQL = """
+            SELECT DISTINCT EntityType, EntityId
+            FROM change_outbox
+            WHERE Seq > ?
+            """;
+
+    /** Share of the sellers above which a refresh reloads everything instead of merging. */
+    private static final double MAX_CHANGED_FRACTION = 0.25;
+
+    private TransactionManager transactionManager;
+    private SellerDao sellerDao;
+    private DepartmentDao departmentDao;
+    private Path path;
+    private long refreshWindowMillis;
+
+    /**
+     * @param transactionManager manager the DAOs were built on, whose read connections are used.
+     * @param sellerDao DAO re-reading changed sellers.
+     * @param departmentDao DAO re-reading changed departments, which must not serve stale copies.
+     * @param path file the snapshot is kept in, or null to keep none.
+     * @param refreshWindowMillis how far before the watermark a refresh looks for changes.
+     */
+    public SellerSnapshotStore(TransactionManager transactionManager, SellerDao sellerDao, DepartmentDao departmentDao,
+                               Path path, long refreshWindowMillis) {
+        this.transactionManager = transactionManager;
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.path = path;
+        this.refreshWindowMillis = refreshWindowMillis;
+    }
+
+    /**
+     * Maps the saved snapshot and refreshes it, or loads a new one when there is no usable file.
+     * @return an up-to-date snapshot, to be closed by the caller.
+     */
+    public SellerSnapshot open() {
+        if (path == null || !Files.exists(path)) {
+            return load();
+        }
+        SellerSnapshot mapped;
+        try {
+            mapped = SnapshotFile.map(path);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Ignoring unreadable seller snapshot " + path, e);
+            return load();
+        }
+        try {
+            SellerSnapshot refreshed = refresh(mapped);
+            if (refreshed != mapped) {
+                mapped.close();
+            }
+            return refreshed;
+        } catch (RuntimeException e) {
+            mapped.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads both tables into a new snapshot and saves it.
+     */
+    public SellerSnapshot load() {
+        SellerSnapshot snapshot = transactionManager.inSnapshotTransaction(tx -> read());
+        save(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Brings a snapshot up to date with the database.
+     * @return the same snapshot if nothing changed since its watermark; otherwise a new, saved one.
+     * The caller closes the old snapshot once nothing reads it anymore.
+     */
+    public SellerSnapshot refresh(SellerSnapshot current) {
+        SellerSnapshot refreshed = transactionManager.inSnapshotTransaction(tx -> read(current));
+        if (refreshed != current) {
+            save(refreshed);
+        }
+        return refreshed;
+    }
+
+    /**
+     * Reads both tables into a new snapshot, inside the caller's snapshot transaction.
+     */
+    private SellerSnapshot read() {
+        return SellerSnapshotBuilder.load(transactionManager, readState().watermark());
+    }
+
+    /**
+     * Reads what changed since a snapshot, inside the caller's snapshot transaction.
+     * @return the same snapshot if nothing changed, otherwise a new, unsaved one.
+     */
+    private SellerSnapshot read(SellerSnapshot current) {
+        SnapshotWatermark since = current.getWatermark();
+        DbState state = readState();
+        if (!since.isKnown() || state.maxSeq() < since.changeSeq() || state.minSeq() > since.changeSeq() + 1) {
+            // Unknown position, a reset outbox or purged changes: the outbox cannot tell what changed
+            return read();
+        }
+        Changes changes = readChanges(since);
+        if (changes.isEmpty()) {
+            if (state.sellerCount() == current.size() && state.maxSellerId() == current.maxId()) {
+                return current;
+            }
+            LOG.warning("Seller table changed without change outbox entries, reloading snapshot");
+            return read();
+        }
+        if (changes.sellerIds().size() > current.size() * MAX_CHANGED_FRACTION) {
+            return read();
+        }
+        return merge(current, changes, state.watermark());
+    }
+
+    /**
+     * Copies the unchanged rows of a snapshot and the current state of the changed ones into a new one.
+     * Changed IDs no longer found in the database are dropped.
+     */
+    private SellerSnapshot merge(SellerSnapshot current, Changes changes, SnapshotWatermark watermark) {
+        List<Seller> sellers = new ArrayList<>(sellerDao.findByIds(changes.sellerIds()).values());
+        Map<Integer, String> departments = new TreeMap<>();
+        for (int i = 0; i < current.departmentCount(); i++) {
+            departments.put(current.getDepartmentIdAt(i), current.getDepartmentNameAt(i));
+        }
+        departments.keySet().removeAll(changes.departmentIds());
+        for (Department dep : departmentDao.findByIds(changes.departmentIds()).values()) {
+            departments.put(dep.getId(), dep.getName());
+        }
+
+        try (SellerSnapshotBuilder builder = new SellerSnapshotBuilder(current.size() + sellers.size())) {
+            for (Map.Entry<Integer, String> e : departments.entrySet()) {
+                builder.addDepartment(e.getKey(), e.getValue());
+            }
+            int next = 0;
+            for (int row = 0; row < current.size(); row++) {
+                int id = current.getId(row);
+                while (next < sellers.size() && sellers.get(next).getId() < id) {
+                    addSeller(builder, sellers.get(next++));
+                }
+                if (!changes.sellerIds().contains(id)) {
+                    builder.addSeller(id, current.getDepartmentId(row), current.getBaseSalary(row),
+                            current.getBirthEpochDay(row), current.getName(row), current.getEmail(row));
+                }
+            }
+            while (next < sellers.size()) {
+                addSeller(builder, sellers.get(next++));
+            }
+            return builder.build(watermark);
+        }
+    }
+
+    private static void addSeller(SellerSnapshotBuilder builder, Seller obj) {
+        builder.addSeller(
+                obj.getId(),
+                obj.getDepartment() == null ? 0 : obj.getDepartment().getId(),
+                obj.getBaseSalary() == null ? 0 : obj.getBaseSalary(),
+                obj.getBirthDate() == null ? SellerSnapshot.NO_DATE : SellerSnapshot.epochDay(obj.getBirthDate()),
+                obj.getName(),
+                obj.getEmail()
+        );
+    }
+
+    /**
+     * Saves a snapshot if a path is configured. The file is only a cache, so failures are logged.
+     */
+    private void save(SellerSnapshot snapshot) {
+        if (path == null) {
+            return;
+        }
+        try {
+            SnapshotFile.write(snapshot, path);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not save seller snapshot to " + path, e);
+        }
+    }
+
+    private DbState readState() {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = transactionManager.getReadConnection();
+            st = conn.prepareStatement(STATE_SQL);
+            rs = st.executeQuery();
+            rs.next();
+            return new DbState(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getTimestamp(5).toInstant());
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    private Changes readChanges(SnapshotWatermark since) {
+        Connection conn = null;
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            conn = transactionManager.getReadConnection();
+            // Both queries are range scans: on the ChangedAt index, then on the primary key
+            long after = since.changeSeq();
+            st = conn.prepareStatement(WINDOW_START_SQL);
+            st.setTimestamp(1, Timestamp.from(since.loadedAt().minusMillis(refreshWindowMillis)));
+            rs = st.executeQuery();
+            if (rs.next() && rs.getObject(1) != null) {
+                after = Math.min(after, rs.getLong(1) - 1);
+            }
+            DB.closeResultSet(rs);
+            DB.closeStatement(st);
+
+            st = conn.prepareStatement(CHANGES_SQL);
+            st.setLong(1, after);
+            rs = st.executeQuery();
+
+            Changes changes = new Changes(new HashSet<>(), new HashSet<>());
+            while (rs.next()) {
+                if (ChangeEvent.Entity.valueOf(rs.getString(1)) == ChangeEvent.Entity.SELLER) {
+                    changes.sellerIds().add(rs.getInt(2));
+                } else {
+                    changes.departmentIds().add(rs.getInt(2));
+                }
+            }
+            return changes;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.close(rs, st, conn);
+        }
+    }
+
+    /**
+     * Change outbox bounds, seller table size and database time, read in one statement.
+     */
+    private record DbState(long maxSeq, long minSeq, int sellerCount, int maxSellerId, Instant now) {
+
+        SnapshotWatermark watermark() {
+            return new SnapshotWatermark(maxSeq, now);
+        }
+    }
+
+    /**
+     * IDs the change outbox reports as inserted, updated or deleted.
+     */
+    private record Changes(Set<Integer> sellerIds, Set<Integer> departmentIds) {
+
+        boolean isEmpty() {
+            return sellerIds.isEmpty() && departmentIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package model.dao.snapshot;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * On-disk format of a SellerSnapshot, laid out so the file can be memory-mapped and its segments
+ * used in place. A fixed header holds a magic number, the format version, the watermark and the
+ * length of each segment; the segments follow in {@link SellerSnapshot#segments()} order, each
+ * starting on an 8-byte boundary. Everything is in native byte order, so a file written on a machine
+ * of the other order is rejected by its magic number.
+ */
+final class SnapshotFile {
+
+    private static final long MAGIC = 0x534E_4150_5345_4C52L; // "SNAPSELR"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_COUNT = 12;
+
+    /** Magic, version and segment count, watermark sequence, seconds and nanos, segment lengths. */
+    private static final int HEADER_BYTES = 5 * Long.BYTES + SEGMENT_COUNT * Long.BYTES;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot to a temporary file next to the target and moves it over the target atomically,
+     * so readers see either the previous file or the complete new one.
+     */
+    static void write(SellerSnapshot snapshot, Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            MemorySegment[] segments = snapshot.segments();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            header.putLong(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(SEGMENT_COUNT);
+            header.putLong(snapshot.getWatermark().changeSeq());
+            header.putLong(snapshot.getWatermark().loadedAt().getEpochSecond());
+            header.putLong(snapshot.getWatermark().loadedAt().getNano());
+            for (MemorySegment segment : segments) {
+                header.putLong(segment.byteSize());
+            }
+            header.flip();
+
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header);
+                for (MemorySegment segment : segments) {
+                    writeFully(channel, segment.asByteBuffer());
+                    writeFully(channel, ByteBuffer.allocate(padding(segment.byteSize())));
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Maps a snapshot file read-only. The mapping belongs to the returned snapshot and is released
+     * when it is closed.
+     * @throws IOException if the file cannot be read or is not a complete snapshot of this format.
+     */
+    static SellerSnapshot map(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try {
+            MemorySegment file;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            }
+            if (file.byteSize() < HEADER_BYTES
+                    || file.get(ValueLayout.JAVA_LONG, 0) != MAGIC
+                    || file.get(ValueLayout.JAVA_INT, 8) != VERSION
+                    || file.get(ValueLayout.JAVA_INT, 12) != SEGMENT_COUNT) {
+                throw new IOException("Not a seller snapshot of version " + VERSION + ": " + path);
+            }
+            SnapshotWatermark watermark = new SnapshotWatermark(
+                    file.get(ValueLayout.JAVA_LONG, 16),
+                    Instant.ofEpochSecond(file.get(ValueLayout.JAVA_LONG, 24), file.get(ValueLayout.JAVA_LONG, 32)));
+
+            MemorySegment[] segments = new MemorySegment[SEGMENT_COUNT];
+            long offset = HEADER_BYTES;
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                long length = file.get(ValueLayout.JAVA_LONG, 40 + (long) i * Long.BYTES);
+                if (length < 0 || length > file.byteSize() - offset) {
+                    throw new IOException("Truncated seller snapshot: " + path);
+                }
+                segments[i] = file.asSlice(offset, length);
+                offset += length + padding(length);
+            }
+            if (offset != file.byteSize() || !columnsMatch(segments)) {
+                throw new IOException("Seller snapshot size does not match its header: " + path);
+            }
+
+            return new SellerSnapshot(arena, watermark,
+                    segments[0], segments[1], segments[2], segments[3], segments[4], segments[5],
+                    segments[6], segments[7],
+                    new StringDictionary(segments[8], segments[9]),
+                    new StringDictionary(segments[10], segments[11]));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the seller columns have one value per row and every department a name code.
+     */
+    private static boolean columnsMatch(MemorySegment[] segments) {
+        long intColumn = segments[0].byteSize();
+        return intColumn % Integer.BYTES == 0
+                && segments[1].byteSize() == intColumn
+                && segments[2].byteSize() == intColumn * 2
+                && segments[3].byteSize() == intColumn
+                && segments[4].byteSize() == intColumn
+                && segments[5].byteSize() == intColumn
+                && segments[6].byteSize() % Integer.BYTES == 0
+                && segments[7].byteSize() == segments[6].byteSize()
+                && segments[8].byteSize() >= Long.BYTES && segments[8].byteSize() % Long.BYTES == 0
+                && segments[10].byteSize() >= Long.BYTES && segments[10].byteSize() % Long.BYTES == 0;
+    }
+
+    private static int padding(long length) {
+        return (int) (-length & (GrowableSegment.ALIGNMENT - 1));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
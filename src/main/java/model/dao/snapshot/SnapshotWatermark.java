@@ -0,0 +1,19 @@
+package model.dao.snapshot;
+
+import java.time.Instant;
+
+/**
+ * Point of the change feed a snapshot reflects: the last outbox sequence number visible when
+ * its load started and the database time at that moment. A negative sequence number means the
+ * change feed was not consulted, so the snapshot cannot be refreshed incrementally.
+ */
+public record SnapshotWatermark(long changeSeq, Instant loadedAt) {
+
+    static SnapshotWatermark unknown() {
+        return new SnapshotWatermark(-1, Instant.now());
+    }
+
+    public boolean isKnown() {
+        return changeSeq >= 0;
+    }
+}
@@ -0,0 +1,72 @@
+package model.dao.snapshot;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strings of a snapshot column stored off-heap as UTF-8, each identified by a code.
+ * String {@code code} occupies the bytes from {@code offsets[code]} to {@code offsets[code + 1]};
+ * code {@link #NULL} stands for null.
+ */
+final class StringDictionary {
+
+    static final int NULL = -1;
+
+    private final MemorySegment offsets;
+    private final MemorySegment bytes;
+
+    /**
+     * @param offsets one long per string plus the end offset of the last one.
+     * @param bytes the UTF-8 encoded strings, back to back.
+     */
+    StringDictionary(MemorySegment offsets, MemorySegment bytes) {
+        this.offsets = offsets;
+        this.bytes = bytes;
+    }
+
+    int size() {
+        return (int) (offsets.byteSize() / Long.BYTES) - 1;
+    }
+
+    MemorySegment getOffsets() {
+        return offsets;
+    }
+
+    MemorySegment getBytes() {
+        return bytes;
+    }
+
+    String get(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        long from = offsets.getAtIndex(ValueLayout.JAVA_LONG, code);
+        long to = offsets.getAtIndex(ValueLayout.JAVA_LONG, code + 1);
+        return new String(bytes.asSlice(from, to - from).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return for each code, whether its string starts with the prefix, compared byte by byte.
+     */
+    boolean[] startingWith(String prefix) {
+        byte[] encoded = prefix.getBytes(StandardCharsets.UTF_8);
+        boolean[] matches = new boolean[size()];
+        long from = offsets.getAtIndex(ValueLayout.JAVA_LONG, 0);
+        for (int code = 0; code < matches.length; code++) {
+            long to = offsets.getAtIndex(ValueLayout.JAVA_LONG, code + 1);
+            matches[code] = to - from >= encoded.length && startsWith(from, encoded);
+            from = to;
+        }
+        return matches;
+    }
+
+    private boolean startsWith(long offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes.get(ValueLayout.JAVA_BYTE, offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,6 +1,7 @@
 package model.entities;
 
 import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.Objects;
 
 public class Department implements Serializable {
@@ -9,6 +10,13 @@ public class Department implements Serializable {
 
     private Integer id;
     private String name;
+    private Integer version;
+
+    /** Fields set to a new value since the department was loaded or written, or null while changes are not tracked. */
+    private transient EnumSet<DepartmentField> dirtyFields;
+
+    /** Number of times a field was set to a new value, tracked or not. */
+    private transient int changeCount;
 
     public Department() {
     }
@@ -31,23 +39,81 @@ public class Department implements Serializable {
     }
 
     public void setName(String name) {
+        if (!Objects.equals(this.name, name)) {
+            changeCount++;
+            if (dirtyFields != null) {
+                dirtyFields.add(DepartmentField.NAME);
+            }
+        }
         this.name = name;
     }
 
+    /**
+     * @return the row version read from the database when optimistic locking is enabled, otherwise null.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    /**
+     * Starts tracking changes from the current state, which the DAOs call once the department matches its row.
+     */
+    public void markClean() {
+        if (dirtyFields == null) {
+            dirtyFields = EnumSet.noneOf(DepartmentField.class);
+        } else {
+            dirtyFields.clear();
+        }
+    }
+
+    /**
+     * Marks the department clean after a write that started when {@link #getChangeCount()} returned
+     * {@code changeCount}, unless a field was set again since, in which case it stays dirty.
+     */
+    public void markClean(int changeCount) {
+        if (this.changeCount == changeCount) {
+            markClean();
+        }
+    }
+
+    /**
+     * @return a counter that moves whenever a field is set to a new value.
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * @return the fields set to a new value since the department was loaded or last written, or every field
+     * for a department whose changes are not tracked (built by the application or deserialized).
+     */
+    public EnumSet<DepartmentField> getDirtyFields() {
+        return dirtyFields == null ? EnumSet.allOf(DepartmentField.class) : EnumSet.copyOf(dirtyFields);
+    }
+
+    /**
+     * Departments are equal when they have the same ID, so a lazily loaded department equals the
+     * loaded one; comparing never loads anything. Departments without an ID are only equal to themselves.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Department that = (Department) o;
-        return Objects.equals(id, that.id) &&
-                Objects.equals(name, that.name);
+        if (!(o instanceof Department that)) return false;
+        return id != null && id.equals(that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name);
+        return Objects.hashCode(id);
     }
 
+    /**
+     * Shows the fields as they are; the name of a department not loaded yet is null.
+     */
     @Override
     public String toString() {
         return "Department{" +
@@ -0,0 +1,19 @@
+package model.entities;
+
+/**
+ * Updatable fields of a Department and the department table columns they are stored in.
+ */
+public enum DepartmentField {
+
+    NAME("Name");
+
+    private final String column;
+
+    DepartmentField(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+}
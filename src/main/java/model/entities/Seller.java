@@ -2,6 +2,7 @@ package model.entities;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Objects;
 
 public class Seller implements Serializable {
@@ -14,6 +15,13 @@ public class Seller implements Serializable {
     private Date birthDate;
     private Double baseSalary;
     private Department department;
+    private Integer version;
+
+    /** Fields set to a new value since the seller was loaded or written, or null while changes are not tracked. */
+    private transient EnumSet<SellerField> dirtyFields;
+
+    /** Number of times a field was set to a new value, tracked or not. */
+    private transient int changeCount;
 
     public Integer getId() {
         return id;
@@ -28,6 +36,9 @@ public class Seller implements Serializable {
     }
 
     public void setName(String name) {
+        if (!Objects.equals(this.name, name)) {
+            markDirty(SellerField.NAME);
+        }
         this.name = name;
     }
 
@@ -36,6 +47,9 @@ public class Seller implements Serializable {
     }
 
     public void setEmail(String email) {
+        if (!Objects.equals(this.email, email)) {
+            markDirty(SellerField.EMAIL);
+        }
         this.email = email;
     }
 
@@ -44,6 +58,9 @@ public class Seller implements Serializable {
     }
 
     public void setBirthDate(Date birthDate) {
+        if (!Objects.equals(this.birthDate, birthDate)) {
+            markDirty(SellerField.BIRTH_DATE);
+        }
         this.birthDate = birthDate;
     }
 
@@ -52,6 +69,9 @@ public class Seller implements Serializable {
     }
 
     public void setBaseSalary(Double baseSalary) {
+        if (!Objects.equals(this.baseSalary, baseSalary)) {
+            markDirty(SellerField.BASE_SALARY);
+        }
         this.baseSalary = baseSalary;
     }
 
@@ -60,9 +80,70 @@ public class Seller implements Serializable {
     }
 
     public void setDepartment(Department department) {
+        if (!Objects.equals(departmentId(this.department), departmentId(department))) {
+            markDirty(SellerField.DEPARTMENT);
+        }
         this.department = department;
     }
 
+    private static Integer departmentId(Department department) {
+        return department == null ? null : department.getId();
+    }
+
+    /**
+     * @return the row version read from the database when optimistic locking is enabled, otherwise null.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    /**
+     * Starts tracking changes from the current state, which the DAOs call once the seller matches its row.
+     */
+    public void markClean() {
+        if (dirtyFields == null) {
+            dirtyFields = EnumSet.noneOf(SellerField.class);
+        } else {
+            dirtyFields.clear();
+        }
+    }
+
+    /**
+     * Marks the seller clean after a write that started when {@link #getChangeCount()} returned
+     * {@code changeCount}, unless a field was set again since, in which case it stays dirty.
+     */
+    public void markClean(int changeCount) {
+        if (this.changeCount == changeCount) {
+            markClean();
+        }
+    }
+
+    /**
+     * @return a counter that moves whenever a field is set to a new value.
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * @return the fields set to a new value since the seller was loaded or last written, or every field
+     * for a seller whose changes are not tracked (built by the application or deserialized).
+     */
+    public EnumSet<SellerField> getDirtyFields() {
+        return dirtyFields == null ? EnumSet.allOf(SellerField.class) : EnumSet.copyOf(dirtyFields);
+    }
+
+    private void markDirty(SellerField field) {
+        changeCount++;
+        if (dirtyFields != null) {
+            dirtyFields.add(field);
+        }
+    }
+
     public Seller() {
     }
 
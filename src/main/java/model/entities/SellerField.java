@@ -0,0 +1,23 @@
+package model.entities;
+
+/**
+ * Updatable fields of a Seller and the seller table columns they are stored in.
+ */
+public enum SellerField {
+
+    NAME("Name"),
+    EMAIL("Email"),
+    BIRTH_DATE("BirthDate"),
+    BASE_SALARY("BaseSalary"),
+    DEPARTMENT("DepartmentId");
+
+    private final String column;
+
+    SellerField(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+}
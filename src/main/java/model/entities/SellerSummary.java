@@ -0,0 +1,9 @@
+package model.entities;
+
+import java.io.Serializable;
+
+/**
+ * Lightweight view of a seller for listings and dropdowns.
+ */
+public record SellerSummary(Integer id, String name, Integer departmentId) implements Serializable {
+}
@@ -0,0 +1,55 @@
+-- Change feed read by ChangeFeedPoller. Triggers append one outbox row per written seller or
+-- department row, in the transaction of the write, so changes made outside this application
+-- (scripts, other services, the bulk loader) are captured too.
+-- Run with the mysql client (it uses DELIMITER).
+
+CREATE TABLE change_outbox (
+    Seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    EntityType VARCHAR(16) NOT NULL,
+    EntityId INT NOT NULL,
+    Operation VARCHAR(6) NOT NULL,
+    ChangedAt TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+
+-- SellerSnapshotStore finds the first change of its refresh window by time.
+CREATE INDEX idx_change_outbox_changed_at ON change_outbox (ChangedAt);
+
+-- Last sequence number each consumer has processed.
+CREATE TABLE change_feed_offset (
+    Consumer VARCHAR(64) NOT NULL PRIMARY KEY,
+    Seq BIGINT NOT NULL
+);
+
+DELIMITER $$
+
+CREATE TRIGGER seller_outbox_ai AFTER INSERT ON seller FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('SELLER', NEW.Id, 'INSERT');
+END$$
+
+CREATE TRIGGER seller_outbox_au AFTER UPDATE ON seller FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('SELLER', NEW.Id, 'UPDATE');
+END$$
+
+CREATE TRIGGER seller_outbox_ad AFTER DELETE ON seller FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('SELLER', OLD.Id, 'DELETE');
+END$$
+
+CREATE TRIGGER department_outbox_ai AFTER INSERT ON department FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('DEPARTMENT', NEW.Id, 'INSERT');
+END$$
+
+CREATE TRIGGER department_outbox_au AFTER UPDATE ON department FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('DEPARTMENT', NEW.Id, 'UPDATE');
+END$$
+
+CREATE TRIGGER department_outbox_ad AFTER DELETE ON department FOR EACH ROW
+BEGIN
+    INSERT INTO change_outbox (EntityType, EntityId, Operation) VALUES ('DEPARTMENT', OLD.Id, 'DELETE');
+END$$
+
+DELIMITER ;
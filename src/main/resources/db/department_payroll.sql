@@ -0,0 +1,71 @@
+-- Incrementally maintained payroll summary per department, read by PayrollDaoJDBC when
+-- payroll.useSummaryTable=true. Triggers keep it in step with every write to seller, so
+-- dashboards read one row per department instead of aggregating the seller table.
+-- Run with the mysql client (it uses DELIMITER).
+
+-- Serves the GROUP BY of the non-summary queries as a covering index, and the
+-- MIN/MAX recomputation done by the triggers below.
+CREATE INDEX idx_seller_department_salary ON seller (DepartmentId, BaseSalary);
+
+CREATE TABLE department_payroll (
+    DepartmentId INT NOT NULL PRIMARY KEY,
+    Headcount BIGINT NOT NULL,
+    SalarySum DOUBLE NOT NULL,
+    MinSalary DOUBLE NULL,
+    MaxSalary DOUBLE NULL
+);
+
+DELIMITER $$
+
+CREATE TRIGGER seller_payroll_ai AFTER INSERT ON seller FOR EACH ROW
+BEGIN
+    INSERT INTO department_payroll (DepartmentId, Headcount, SalarySum, MinSalary, MaxSalary)
+    VALUES (NEW.DepartmentId, 1, NEW.BaseSalary, NEW.BaseSalary, NEW.BaseSalary)
+    ON DUPLICATE KEY UPDATE
+        Headcount = Headcount + 1,
+        SalarySum = SalarySum + NEW.BaseSalary,
+        MinSalary = LEAST(COALESCE(MinSalary, NEW.BaseSalary), NEW.BaseSalary),
+        MaxSalary = GREATEST(COALESCE(MaxSalary, NEW.BaseSalary), NEW.BaseSalary);
+END$$
+
+-- Removing a seller can only be undone for MIN/MAX by looking at the remaining rows,
+-- which the (DepartmentId, BaseSalary) index answers with one lookup each.
+CREATE TRIGGER seller_payroll_ad AFTER DELETE ON seller FOR EACH ROW
+BEGIN
+    UPDATE department_payroll
+    SET Headcount = Headcount - 1,
+        SalarySum = SalarySum - OLD.BaseSalary,
+        MinSalary = (SELECT MIN(BaseSalary) FROM seller WHERE DepartmentId = OLD.DepartmentId),
+        MaxSalary = (SELECT MAX(BaseSalary) FROM seller WHERE DepartmentId = OLD.DepartmentId)
+    WHERE DepartmentId = OLD.DepartmentId;
+END$$
+
+CREATE TRIGGER seller_payroll_au AFTER UPDATE ON seller FOR EACH ROW
+BEGIN
+    IF NOT (OLD.DepartmentId <=> NEW.DepartmentId) OR NOT (OLD.BaseSalary <=> NEW.BaseSalary) THEN
+        UPDATE department_payroll
+        SET Headcount = Headcount - 1,
+            SalarySum = SalarySum - OLD.BaseSalary
+        WHERE DepartmentId = OLD.DepartmentId;
+
+        INSERT INTO department_payroll (DepartmentId, Headcount, SalarySum, MinSalary, MaxSalary)
+        VALUES (NEW.DepartmentId, 1, NEW.BaseSalary, NEW.BaseSalary, NEW.BaseSalary)
+        ON DUPLICATE KEY UPDATE
+            Headcount = Headcount + 1,
+            SalarySum = SalarySum + NEW.BaseSalary;
+
+        UPDATE department_payroll
+        SET MinSalary = (SELECT MIN(BaseSalary) FROM seller WHERE DepartmentId = department_payroll.DepartmentId),
+            MaxSalary = (SELECT MAX(BaseSalary) FROM seller WHERE DepartmentId = department_payroll.DepartmentId)
+        WHERE DepartmentId IN (OLD.DepartmentId, NEW.DepartmentId);
+    END IF;
+END$$
+
+DELIMITER ;
+
+-- Backfill, and rebuild to clear any floating point drift of SalarySum after many updates.
+-- Run with writes to seller paused so the triggers and the rebuild do not interleave.
+REPLACE INTO department_payroll (DepartmentId, Headcount, SalarySum, MinSalary, MaxSalary)
+SELECT DepartmentId, COUNT(*), SUM(BaseSalary), MIN(BaseSalary), MAX(BaseSalary)
+FROM seller
+GROUP BY DepartmentId;
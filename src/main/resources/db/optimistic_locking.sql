@@ -0,0 +1,8 @@
+-- Version columns used when dao.optimisticLocking=true.
+-- Every checked update runs "... SET ..., Version = Version + 1 WHERE Id = ? AND Version = ?",
+-- so a writer holding a stale version updates no row and gets an OptimisticLockException.
+-- Existing rows start at version 0; no extra index is needed since updates look rows up by Id.
+
+ALTER TABLE seller ADD COLUMN Version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE department ADD COLUMN Version INT NOT NULL DEFAULT 0;
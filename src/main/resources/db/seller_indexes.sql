@@ -0,0 +1,22 @@
+-- Secondary indexes backing the seller queries.
+-- InnoDB appends the primary key to every secondary index, so the ", Id" tie-breaker
+-- of the ORDER BY clauses is served by the same index.
+
+-- findByDepartment and its keyset pages (WHERE DepartmentId = ? ORDER BY Name, Id),
+-- and SellerQuery.department(...). Also serves the DepartmentId foreign key.
+CREATE INDEX idx_seller_department_name ON seller (DepartmentId, Name);
+
+-- SellerQuery.nameStartsWith(...) (Name LIKE 'prefix%') and orderBy(SellerField.NAME).
+CREATE INDEX idx_seller_name ON seller (Name);
+
+-- SellerQuery.salaryBetween(...) and orderBy(SellerField.BASE_SALARY).
+CREATE INDEX idx_seller_base_salary ON seller (BaseSalary);
+
+-- SellerQuery.bornBetween(...) and orderBy(SellerField.BIRTH_DATE).
+CREATE INDEX idx_seller_birth_date ON seller (BirthDate);
+
+-- Upserts matching sellers by Email: INSERT ... ON DUPLICATE KEY UPDATE needs a unique key to match
+-- on, and it keeps concurrent upserts of the same new email from both inserting.
+-- Duplicate emails must be cleaned up before this can be created, e.g. by finding them with
+--   SELECT Email FROM seller WHERE Email IS NOT NULL GROUP BY Email HAVING COUNT(*) > 1;
+CREATE UNIQUE INDEX uq_seller_email ON seller (Email);